@@ -0,0 +1,73 @@
+package com.moon.taxadvisor.service;
+
+import com.moon.taxadvisor.config.SimulationProperties;
+import com.moon.taxadvisor.domain.RealizedGain;
+import com.moon.taxadvisor.service.HarvestTimingSimulator.SimulationRequest;
+import com.moon.taxadvisor.service.HarvestTimingSimulator.SimulationResult;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ./gradlew jmh 로 실행한다.
+ * 경로 수와 전용 ForkJoinPool 병렬도(0이면 코어 수)별로 손절 시점 시뮬레이션 한 번의 소요 시간을 잰다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HarvestTimingSimulatorBenchmark {
+
+    private static final int POSITIONS = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    private int paths;
+
+    @Param({"1", "0"})
+    private int parallelism;
+
+    private HarvestTimingSimulator simulator;
+    private UserDataSnapshot snapshot;
+    private SimulationRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimulationProperties simulationProperties = new SimulationProperties();
+        simulationProperties.setMaxPaths(paths);
+        simulationProperties.setParallelism(parallelism);
+        simulator = new HarvestTimingSimulator(null, simulationProperties, null);
+
+        RealizedGain gain = new RealizedGain();
+        gain.setUserId("bench");
+        gain.setStockName("REALIZED");
+        gain.setGainAmount(TaxCalculationFixtures.randomRealizedGain(POSITIONS));
+        gain.setRealizedDate(LocalDate.of(2025, 1, 2));
+        snapshot = new UserDataSnapshot("bench", TaxCalculationFixtures.randomPortfolios(POSITIONS, POSITIONS), List.of(gain));
+        request = new SimulationRequest(paths, 30.0, 5.0, 42L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        simulator.shutdown();
+    }
+
+    @Benchmark
+    public SimulationResult simulate() {
+        return simulator.simulate(snapshot, request);
+    }
+}
@@ -0,0 +1,77 @@
+package com.moon.taxadvisor.service;
+
+import com.moon.taxadvisor.domain.Money;
+import com.moon.taxadvisor.domain.Portfolio;
+import com.moon.taxadvisor.domain.PositionBook;
+import com.moon.taxadvisor.service.TaxCalculationService.TaxPreview;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ./gradlew jmh 로 실행한다.
+ * 기존 BigDecimal 계산식과 long 고정소수점 엔진으로 같은 포트폴리오의 세금 미리보기를 계산해 비교한다.
+ * 두 결과가 다르면 Setup 단계에서 실패한다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TaxCalculationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int positions;
+
+    private final TaxCalculationService taxCalculationService = new TaxCalculationService(null, null, null);
+
+    private List<Portfolio> portfolios;
+    private BigDecimal realizedGain;
+    private PositionBook book;
+    private long realizedGainCents;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        portfolios = TaxCalculationFixtures.randomPortfolios(positions, positions);
+        realizedGain = TaxCalculationFixtures.randomRealizedGain(positions);
+        book = PositionBook.of(portfolios);
+        realizedGainCents = Money.fromBigDecimal(realizedGain);
+
+        TaxPreview expected = bigDecimal();
+        TaxPreview actual = fixedPoint();
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("fixed-point preview differs: " + expected + " vs " + actual);
+        }
+    }
+
+    @Benchmark
+    public TaxPreview bigDecimal() {
+        return TaxCalculationFixtures.referencePreview(portfolios, realizedGain);
+    }
+
+    @Benchmark
+    public TaxPreview fixedPoint() {
+        return taxCalculationService.calculatePreview(book, realizedGainCents);
+    }
+
+    /**
+     * 엔티티에서 long 배열로 옮기는 경계 변환 비용까지 포함한 경우.
+     */
+    @Benchmark
+    public TaxPreview fixedPointWithConversion() {
+        return taxCalculationService.calculatePreview(PositionBook.of(portfolios), realizedGainCents);
+    }
+}
@@ -1,13 +1,40 @@
 package com.moon.taxadvisor;
 
+import com.moon.taxadvisor.config.AdmissionProperties;
+import com.moon.taxadvisor.config.DegradationProperties;
+import com.moon.taxadvisor.config.ExecutionProperties;
 import com.moon.taxadvisor.config.GeminiProperties;
+import com.moon.taxadvisor.config.HarvestProperties;
+import com.moon.taxadvisor.config.HttpClientProperties;
+import com.moon.taxadvisor.config.IngestProperties;
 import com.moon.taxadvisor.config.NanoBananaProperties;
+import com.moon.taxadvisor.config.PriceFeedProperties;
+import com.moon.taxadvisor.config.ResilienceProperties;
+import com.moon.taxadvisor.config.SimulationProperties;
+import com.moon.taxadvisor.config.TaxLedgerProperties;
+import com.moon.taxadvisor.config.ToolResultProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableConfigurationProperties({GeminiProperties.class, NanoBananaProperties.class})
+@EnableScheduling
+@EnableConfigurationProperties({
+        GeminiProperties.class,
+        NanoBananaProperties.class,
+        ExecutionProperties.class,
+        HttpClientProperties.class,
+        TaxLedgerProperties.class,
+        IngestProperties.class,
+        PriceFeedProperties.class,
+        HarvestProperties.class,
+        SimulationProperties.class,
+        ToolResultProperties.class,
+        ResilienceProperties.class,
+        AdmissionProperties.class,
+        DegradationProperties.class
+})
 public class TaxAdvisorApplication {
 
     public static void main(String[] args) {
@@ -1,45 +1,50 @@
 package com.moon.taxadvisor.client.gemini;
 
+import com.moon.taxadvisor.client.gemini.GeminiModels.Candidate;
 import com.moon.taxadvisor.client.gemini.GeminiModels.Content;
 import com.moon.taxadvisor.client.gemini.GeminiModels.FunctionCallingConfig;
 import com.moon.taxadvisor.client.gemini.GeminiModels.GenerateContentRequest;
 import com.moon.taxadvisor.client.gemini.GeminiModels.GenerateContentResponse;
 import com.moon.taxadvisor.client.gemini.GeminiModels.Tool;
 import com.moon.taxadvisor.client.gemini.GeminiModels.ToolConfig;
+import com.moon.taxadvisor.client.resilience.UpstreamGuard;
+import com.moon.taxadvisor.client.resilience.UpstreamStatusException;
 import com.moon.taxadvisor.config.GeminiProperties;
 import java.util.List;
+import java.util.Objects;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Component
 @RequiredArgsConstructor
 public class GeminiClient {
 
-    private final WebClient.Builder webClientBuilder;
+    @Qualifier("geminiWebClient")
+    private final WebClient webClient;
     private final GeminiProperties geminiProperties;
+    @Qualifier("geminiUpstreamGuard")
+    private final UpstreamGuard upstreamGuard;
 
     public boolean isConfigured() {
         return geminiProperties.getApiKey() != null && !geminiProperties.getApiKey().isBlank();
     }
 
-    public GenerateContentResponse generateContent(
+    public Mono<GenerateContentResponse> generateContent(
             List<Content> conversation,
             List<Tool> tools,
             String systemPrompt
     ) {
-        WebClient webClient = webClientBuilder.baseUrl(geminiProperties.getBaseUrl()).build();
-
-        GenerateContentRequest request = new GenerateContentRequest(
-                conversation,
-                GeminiModels.systemText(systemPrompt),
-                tools,
-                new ToolConfig(new FunctionCallingConfig("AUTO"))
-        );
+        return generateContent(buildRequest(conversation, tools, systemPrompt));
+    }
 
-        return webClient.post()
+    public Mono<GenerateContentResponse> generateContent(GenerateContentRequest request) {
+        return upstreamGuard.execute(() -> webClient.post()
                 .uri(uriBuilder -> uriBuilder
                         .path("/v1beta/models/{model}:generateContent")
                         .queryParam("key", geminiProperties.getApiKey())
@@ -47,8 +52,58 @@ public class GeminiClient {
                 .bodyValue(request)
                 .retrieve()
                 .onStatus(HttpStatusCode::isError, response -> response.bodyToMono(String.class)
-                        .flatMap(body -> Mono.error(new IllegalStateException("Gemini API error: " + body))))
-                .bodyToMono(GenerateContentResponse.class)
-                .block();
+                        .defaultIfEmpty("")
+                        .flatMap(body -> Mono.error(new UpstreamStatusException(
+                                response.statusCode().value(),
+                                "Gemini API error: " + body))))
+                .bodyToMono(GenerateContentResponse.class));
+    }
+
+    /**
+     * :streamGenerateContent 엔드포인트를 SSE(alt=sse)로 호출해 청크 단위 응답을 그대로 흘려보낸다.
+     * 서버가 SSE 대신 청크 인코딩된 JSON 배열로 응답해도 배열 원소 단위로 디코딩된다.
+     */
+    public Flux<GenerateContentResponse> streamGenerateContent(
+            List<Content> conversation,
+            List<Tool> tools,
+            String systemPrompt
+    ) {
+        return upstreamGuard.executeMany(() -> webClient.post()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/v1beta/models/{model}:streamGenerateContent")
+                        .queryParam("alt", "sse")
+                        .queryParam("key", geminiProperties.getApiKey())
+                        .build(geminiProperties.getModel()))
+                .accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON)
+                .bodyValue(buildRequest(conversation, tools, systemPrompt))
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response -> response.bodyToMono(String.class)
+                        .defaultIfEmpty("")
+                        .flatMap(body -> Mono.error(new UpstreamStatusException(
+                                response.statusCode().value(),
+                                "Gemini API error: " + body))))
+                .bodyToFlux(GenerateContentResponse.class));
+    }
+
+    public Flux<Content> streamContent(
+            List<Content> conversation,
+            List<Tool> tools,
+            String systemPrompt
+    ) {
+        return streamGenerateContent(conversation, tools, systemPrompt)
+                .concatMapIterable(response -> response.firstCandidate()
+                        .map(Candidate::content)
+                        .filter(Objects::nonNull)
+                        .stream()
+                        .toList());
+    }
+
+    public GenerateContentRequest buildRequest(List<Content> conversation, List<Tool> tools, String systemPrompt) {
+        return new GenerateContentRequest(
+                conversation,
+                GeminiModels.systemText(systemPrompt),
+                tools,
+                new ToolConfig(new FunctionCallingConfig("AUTO"))
+        );
     }
 }
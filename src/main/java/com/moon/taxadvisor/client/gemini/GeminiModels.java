@@ -2,6 +2,7 @@ package com.moon.taxadvisor.client.gemini;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +11,12 @@ import java.util.Optional;
 
 public final class GeminiModels {
 
+    /**
+     * 모델이 직접 만들지 않은 functionCall 턴에 붙이는 서명.
+     * Gemini 3는 대화 이력의 functionCall에 thoughtSignature를 요구하며, 이 값이면 검증을 건너뛴다.
+     */
+    public static final String SYNTHETIC_THOUGHT_SIGNATURE = "skip_thought_signature_validator";
+
     private GeminiModels() {
     }
 
@@ -34,6 +41,16 @@ public final class GeminiModels {
                     .toList();
         }
 
+        public List<String> texts() {
+            if (parts == null) {
+                return Collections.emptyList();
+            }
+            return parts.stream()
+                    .map(Part::text)
+                    .filter(text -> text != null && !text.isEmpty())
+                    .toList();
+        }
+
         public String joinedText() {
             if (parts == null) {
                 return "";
@@ -93,6 +110,72 @@ public final class GeminiModels {
         return new Content(null, List.of(new Part(text, null, null, null)));
     }
 
+    /**
+     * streamGenerateContent 청크들을 대화 이력에 넣을 하나의 Content로 합친다.
+     * 연속된 텍스트 조각은 하나의 Part로 이어 붙이고, 함수 호출 Part는 그대로 유지한다.
+     */
+    public static Content mergeStreamedChunks(List<Content> chunks) {
+        String role = "model";
+        List<Part> merged = new ArrayList<>();
+        StringBuilder pendingText = null;
+        String pendingSignature = null;
+
+        for (Content chunk : chunks) {
+            if (chunk.role() != null) {
+                role = chunk.role();
+            }
+            if (chunk.parts() == null) {
+                continue;
+            }
+            for (Part part : chunk.parts()) {
+                boolean textOnly = part.functionCall() == null && part.functionResponse() == null;
+                if (textOnly) {
+                    if (pendingText == null) {
+                        pendingText = new StringBuilder();
+                    }
+                    if (part.text() != null) {
+                        pendingText.append(part.text());
+                    }
+                    if (part.thoughtSignature() != null) {
+                        pendingSignature = part.thoughtSignature();
+                    }
+                    continue;
+                }
+                if (pendingText != null) {
+                    merged.add(new Part(pendingText.toString(), null, null, pendingSignature));
+                    pendingText = null;
+                    pendingSignature = null;
+                }
+                merged.add(part);
+            }
+        }
+        if (pendingText != null) {
+            merged.add(new Part(pendingText.toString(), null, null, pendingSignature));
+        }
+        return new Content(role, merged);
+    }
+
+    /**
+     * 서버가 미리 실행한 도구 호출을 모델 턴으로 만든다. 서명은 첫 번째 functionCall Part에만 붙인다.
+     */
+    public static Content syntheticModelFunctionCalls(List<FunctionCall> functionCalls) {
+        List<Part> parts = new ArrayList<>(functionCalls.size());
+        for (FunctionCall functionCall : functionCalls) {
+            String signature = parts.isEmpty() ? SYNTHETIC_THOUGHT_SIGNATURE : null;
+            parts.add(new Part(null, functionCall, null, signature));
+        }
+        return new Content("model", parts);
+    }
+
+    public static Content userFunctionResponses(List<FunctionResponse> functionResponses) {
+        return new Content(
+                "user",
+                functionResponses.stream()
+                        .map(functionResponse -> new Part(null, null, functionResponse, null))
+                        .toList()
+        );
+    }
+
     public static Content userFunctionResponse(String functionName, Map<String, Object> payload) {
         return new Content(
                 "user",
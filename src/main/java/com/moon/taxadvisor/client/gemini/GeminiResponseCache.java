@@ -0,0 +1,203 @@
+package com.moon.taxadvisor.client.gemini;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.moon.taxadvisor.client.gemini.GeminiModels.Content;
+import com.moon.taxadvisor.client.gemini.GeminiModels.GenerateContentRequest;
+import com.moon.taxadvisor.client.gemini.GeminiModels.GenerateContentResponse;
+import com.moon.taxadvisor.client.gemini.GeminiModels.Tool;
+import com.moon.taxadvisor.config.GeminiProperties;
+import com.moon.taxadvisor.domain.UserDataChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * GeminiClient 앞단의 응답 캐시.
+ * 시스템 프롬프트, 도구 선언, 대화 목록을 정렬된 JSON으로 직렬화한 SHA-256을 키로 쓰고,
+ * 사용자 데이터가 바뀌면 해당 사용자의 항목을 모두 무효화한다.
+ * 같은 요청이 로딩 중이면 합류하고, 합류한 호출자가 모두 취소하면 로딩 중인 업스트림 호출도 취소한다.
+ */
+@Component
+@Slf4j
+public class GeminiResponseCache {
+
+    private static final JsonMapper CANONICAL_MAPPER = JsonMapper.builder()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    private final GeminiClient geminiClient;
+    private final boolean enabled;
+    private final AsyncCache<CacheKey, CachedResponse> cache;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter joinedCounter;
+    private final Timer savedLatencyTimer;
+    private final Map<CompletableFuture<CachedResponse>, InFlightLoad> inFlightLoads = new ConcurrentHashMap<>();
+
+    public GeminiResponseCache(GeminiClient geminiClient, GeminiProperties geminiProperties, MeterRegistry meterRegistry) {
+        this.geminiClient = geminiClient;
+        this.enabled = geminiProperties.isCacheEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(geminiProperties.getCacheMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(geminiProperties.getCacheTtlSeconds()))
+                .recordStats()
+                .buildAsync();
+        this.hitCounter = Counter.builder("gemini.cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("gemini.cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.joinedCounter = Counter.builder("gemini.cache.requests")
+                .tag("result", "joined")
+                .register(meterRegistry);
+        this.savedLatencyTimer = Timer.builder("gemini.cache.saved.latency")
+                .description("Upstream latency avoided by serving a cached generateContent response")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "gemini.response");
+    }
+
+    public Mono<GenerateContentResponse> generateContent(
+            String userId,
+            List<Content> conversation,
+            List<Tool> tools,
+            String systemPrompt
+    ) {
+        GenerateContentRequest request = geminiClient.buildRequest(conversation, tools, systemPrompt);
+        if (!enabled) {
+            return geminiClient.generateContent(request);
+        }
+
+        return Mono.defer(() -> lookup(userId, new CacheKey(userId, hash(request)), request))
+                .map(CachedResponse::response);
+    }
+
+    private Mono<CachedResponse> lookup(String userId, CacheKey key, GenerateContentRequest request) {
+        CompletableFuture<CachedResponse> cached = cache.getIfPresent(key);
+        if (cached != null && !cached.isDone()) {
+            // 아직 로딩 중인 같은 요청에 합류한 경우. 절약한 시간은 원래 로딩 시간보다 짧으므로 기록하지 않는다.
+            Mono<CachedResponse> joined = join(cached);
+            if (joined != null) {
+                joinedCounter.increment();
+                return joined;
+            }
+        } else if (cached != null && !cached.isCompletedExceptionally()) {
+            hitCounter.increment();
+            // 이미 끝난 응답이라 취소해도 멈출 호출이 없다.
+            return Mono.fromFuture(cached, true)
+                    .doOnNext(entry -> {
+                        savedLatencyTimer.record(entry.loadNanos(), TimeUnit.NANOSECONDS);
+                        log.info("Gemini 응답 캐시 적중: userId={}, savedMs={}", userId,
+                                TimeUnit.NANOSECONDS.toMillis(entry.loadNanos()));
+                    });
+        }
+
+        missCounter.increment();
+        CompletableFuture<CachedResponse> loading = cache.get(key, (ignored, executor) -> {
+            long startedAt = System.nanoTime();
+            CompletableFuture<CachedResponse> future = geminiClient.generateContent(request)
+                    .map(response -> new CachedResponse(response, System.nanoTime() - startedAt))
+                    .toFuture();
+            inFlightLoads.put(future, new InFlightLoad(key, future));
+            future.whenComplete((response, exception) -> inFlightLoads.remove(future));
+            return future;
+        });
+        Mono<CachedResponse> loaded = join(loading);
+        // 방금 마지막 구독자가 떠나 취소된 로딩을 받은 경우에는 다시 조회한다.
+        return loaded != null ? loaded : Mono.defer(() -> lookup(userId, key, request));
+    }
+
+    /**
+     * 로딩 중인 응답을 구독자 수를 세며 공유한다. 마지막 구독자가 취소하면 업스트림 호출(재시도 포함)을 취소하고 캐시 항목을 지운다.
+     * 이미 취소된 로딩이면 null을 돌려준다.
+     */
+    private Mono<CachedResponse> join(CompletableFuture<CachedResponse> future) {
+        InFlightLoad load = inFlightLoads.get(future);
+        if (load == null) {
+            // 그 사이에 로딩이 끝났다.
+            return future.isCancelled() ? null : Mono.fromFuture(future, true);
+        }
+        if (!load.join()) {
+            return null;
+        }
+        return Mono.fromFuture(future, true)
+                .doFinally(signal -> load.leave(signal == SignalType.CANCEL));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        invalidateUser(event.userId());
+    }
+
+    public void invalidateUser(String userId) {
+        boolean removed = cache.synchronous().asMap().keySet().removeIf(key -> key.userId().equals(userId));
+        if (removed) {
+            log.info("사용자 데이터 변경으로 Gemini 응답 캐시를 무효화했습니다. userId={}", userId);
+        }
+    }
+
+    private String hash(GenerateContentRequest request) {
+        try {
+            byte[] canonical = CANONICAL_MAPPER.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+
+    private record CacheKey(String userId, String requestHash) {
+    }
+
+    private record CachedResponse(GenerateContentResponse response, long loadNanos) {
+    }
+
+    private final class InFlightLoad {
+        private final CacheKey key;
+        private final CompletableFuture<CachedResponse> future;
+        private int subscribers;
+        private boolean cancelled;
+
+        private InFlightLoad(CacheKey key, CompletableFuture<CachedResponse> future) {
+            this.key = key;
+            this.future = future;
+        }
+
+        private synchronized boolean join() {
+            if (cancelled) {
+                return false;
+            }
+            subscribers++;
+            return true;
+        }
+
+        private void leave(boolean cancelledByCaller) {
+            synchronized (this) {
+                if (--subscribers > 0 || !cancelledByCaller || future.isDone()) {
+                    return;
+                }
+                cancelled = true;
+            }
+            cache.asMap().remove(key, future);
+            future.cancel(true);
+            log.info("구독자가 모두 취소해 Gemini 호출을 중단했습니다. userId={}", key.userId());
+        }
+    }
+}
@@ -2,11 +2,14 @@ package com.moon.taxadvisor.client.nanobanana;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.moon.taxadvisor.client.resilience.UpstreamGuard;
+import com.moon.taxadvisor.client.resilience.UpstreamStatusException;
 import com.moon.taxadvisor.config.NanoBananaProperties;
 import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -18,10 +21,12 @@ import reactor.core.publisher.Mono;
 public class NanoBananaClient {
 
     private static final List<String> IMAGE_MODALITY = List.of("IMAGE");
-    private static final int MAX_IN_MEMORY_IMAGE_RESPONSE_BYTES = 50 * 1024 * 1024;
 
-    private final WebClient.Builder webClientBuilder;
+    @Qualifier("nanoBananaWebClient")
+    private final WebClient webClient;
     private final NanoBananaProperties nanoBananaProperties;
+    @Qualifier("nanoBananaUpstreamGuard")
+    private final UpstreamGuard upstreamGuard;
 
     public boolean isConfigured() {
         return nanoBananaProperties.getApiKey() != null && !nanoBananaProperties.getApiKey().isBlank();
@@ -32,16 +37,12 @@ public class NanoBananaClient {
             return Mono.empty();
         }
 
-        WebClient webClient = webClientBuilder
-                .baseUrl(nanoBananaProperties.getBaseUrl())
-                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_IN_MEMORY_IMAGE_RESPONSE_BYTES))
-                .build();
         GenerateImageRequest request = new GenerateImageRequest(
                 List.of(new RequestContent(List.of(new RequestPart(prompt)))),
                 new GenerationConfig(IMAGE_MODALITY)
         );
 
-        return webClient.post()
+        return upstreamGuard.execute(() -> webClient.post()
                 .uri(uriBuilder -> uriBuilder
                         .path("/v1beta/models/{model}:generateContent")
                         .queryParam("key", nanoBananaProperties.getApiKey())
@@ -49,10 +50,13 @@ public class NanoBananaClient {
                 .bodyValue(request)
                 .retrieve()
                 .onStatus(HttpStatusCode::isError, response -> response.bodyToMono(String.class)
-                        .flatMap(body -> Mono.error(new IllegalStateException("Nano Banana API error: " + body))))
+                        .defaultIfEmpty("")
+                        .flatMap(body -> Mono.error(new UpstreamStatusException(
+                                response.statusCode().value(),
+                                "Nano Banana API error: " + body))))
                 .bodyToMono(GenerateImageResponse.class)
                 .flatMap(this::extractImageAsDataUri)
-                .timeout(Duration.ofSeconds(nanoBananaProperties.getTimeoutSeconds()));
+                .timeout(Duration.ofSeconds(nanoBananaProperties.getTimeoutSeconds())));
     }
 
     private Mono<String> extractImageAsDataUri(GenerateImageResponse response) {
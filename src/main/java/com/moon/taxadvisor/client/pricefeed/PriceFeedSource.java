@@ -0,0 +1,11 @@
+package com.moon.taxadvisor.client.pricefeed;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * 종목별 시세 틱 스트림. 실제 시세 피드로 교체할 수 있도록 인터페이스로 분리한다.
+ */
+public interface PriceFeedSource {
+
+    Flux<PriceTick> ticks();
+}
@@ -0,0 +1,7 @@
+package com.moon.taxadvisor.client.pricefeed;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record PriceTick(String stockName, BigDecimal price, Instant timestamp) {
+}
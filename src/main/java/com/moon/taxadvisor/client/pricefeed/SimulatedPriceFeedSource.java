@@ -0,0 +1,57 @@
+package com.moon.taxadvisor.client.pricefeed;
+
+import com.moon.taxadvisor.config.PriceFeedProperties;
+import com.moon.taxadvisor.repository.PriceUpdateRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * 로컬 시연용 시세 피드. 보유 종목의 현재가에서 출발해 틱마다 임의 종목 하나를 무작위로 움직인다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SimulatedPriceFeedSource implements PriceFeedSource {
+
+    private static final BigDecimal MIN_PRICE = new BigDecimal("0.01");
+
+    private final PriceUpdateRepository priceUpdateRepository;
+    private final PriceFeedProperties priceFeedProperties;
+
+    @Override
+    public Flux<PriceTick> ticks() {
+        return Flux.defer(() -> {
+            Map<String, BigDecimal> prices = new ConcurrentHashMap<>(priceUpdateRepository.findLatestPriceByStockName());
+            List<String> symbols = List.copyOf(prices.keySet());
+            if (symbols.isEmpty()) {
+                log.warn("시뮬레이션 시세 피드: 보유 종목이 없어 틱을 만들지 않습니다.");
+                return Flux.empty();
+            }
+
+            log.info("시뮬레이션 시세 피드 시작: symbols={}", symbols);
+            return Flux.interval(Duration.ofMillis(priceFeedProperties.getSimulatedTickIntervalMs()))
+                    .map(ignored -> {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        String symbol = symbols.get(random.nextInt(symbols.size()));
+                        BigDecimal next = prices.compute(symbol, (key, price) -> nextPrice(price, random));
+                        return new PriceTick(symbol, next, Instant.now());
+                    });
+        });
+    }
+
+    private BigDecimal nextPrice(BigDecimal price, ThreadLocalRandom random) {
+        double changeRatio = random.nextGaussian() * priceFeedProperties.getSimulatedVolatilityPercent() / 100.0;
+        BigDecimal next = price.multiply(BigDecimal.valueOf(1.0 + changeRatio)).setScale(2, RoundingMode.HALF_UP);
+        return next.compareTo(MIN_PRICE) < 0 ? MIN_PRICE : next;
+    }
+}
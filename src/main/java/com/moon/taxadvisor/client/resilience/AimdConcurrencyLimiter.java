@@ -0,0 +1,104 @@
+package com.moon.taxadvisor.client.resilience;
+
+import com.moon.taxadvisor.config.ResilienceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 관측한 지연으로 동시 호출 한도를 조절한다. (AIMD)
+ * 한도 근처까지 쓰이는 동안 정상 응답이 오면 한도를 1/limit 씩 늘리고(왕복당 +1),
+ * 지연 임계값 초과·타임아웃·과부하 응답(429/503)이면 limiterBackoffRatio 배로 줄인다.
+ */
+public class AimdConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejectedCounter;
+    private volatile double limit;
+    private volatile long latencyEstimateNanos;
+
+    public AimdConcurrencyLimiter(
+            String client,
+            ResilienceProperties properties,
+            long latencyThresholdMs,
+            MeterRegistry meterRegistry
+    ) {
+        this.minLimit = properties.getLimiterMinLimit();
+        this.maxLimit = properties.getLimiterMaxLimit();
+        this.backoffRatio = properties.getLimiterBackoffRatio();
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.limit = properties.getLimiterInitialLimit();
+        this.rejectedCounter = Counter.builder("upstream.limiter.rejected")
+                .description("Upstream calls rejected by the adaptive concurrency limit")
+                .tag("client", client)
+                .register(meterRegistry);
+        Gauge.builder("upstream.limiter.limit", this, AimdConcurrencyLimiter::getLimit)
+                .tag("client", client)
+                .register(meterRegistry);
+        Gauge.builder("upstream.limiter.inflight", inFlight, AtomicInteger::get)
+                .tag("client", client)
+                .register(meterRegistry);
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejectedCounter.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 호출 하나가 끝날 때(release 전) 호출한다. dropped는 타임아웃이나 과부하 응답처럼 업스트림 혼잡을 뜻하는 실패다.
+     */
+    public synchronized void onSample(long elapsedNanos, boolean dropped) {
+        latencyEstimateNanos = latencyEstimateNanos == 0 ? elapsedNanos : (latencyEstimateNanos * 4 + elapsedNanos) / 5;
+        adjust(elapsedNanos, dropped);
+    }
+
+    /**
+     * 스트리밍 호출은 전체 길이가 답변 길이에 비례하므로 첫 청크까지의 시간으로만 한도를 조절한다.
+     * 단건 호출 시간 추정치(latencyEstimate)에는 넣지 않는다.
+     */
+    public synchronized void onStreamSample(long timeToFirstChunkNanos, boolean dropped) {
+        adjust(timeToFirstChunkNanos, dropped);
+    }
+
+    private void adjust(long elapsedNanos, boolean dropped) {
+        if (dropped || elapsedNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlight.get() * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    public long getLatencyThresholdNanos() {
+        return latencyThresholdNanos;
+    }
+
+    /**
+     * 최근 단건 호출 시간(취소·실패 포함)의 지수 이동 평균. 스트리밍 호출은 포함하지 않는다.
+     */
+    public long getLatencyEstimateNanos() {
+        return latencyEstimateNanos;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+}
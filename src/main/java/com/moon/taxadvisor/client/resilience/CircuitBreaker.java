@@ -0,0 +1,176 @@
+package com.moon.taxadvisor.client.resilience;
+
+import com.moon.taxadvisor.config.ResilienceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 최근 circuitWindowSize 건 중 실패율이 circuitFailureRatePercent 이상이면 열리고(OPEN),
+ * circuitOpenDurationMs 뒤 circuitHalfOpenCalls 건만 시험 호출(HALF_OPEN)해 모두 성공하면 닫힌다.
+ * 열려 있는 동안의 호출은 업스트림에 보내지 않고 바로 UpstreamRejectedException으로 끝나 각 서비스의 로컬 대체 응답으로 이어진다.
+ * 허가는 발급 당시의 세대(상태가 바뀔 때마다 1 증가)를 담는다. 이전 세대에 허가받은 호출의 결과는 현재 상태에 반영하지 않으므로,
+ * 열리기 전에 나간 느린 호출이 HALF_OPEN 시험을 닫거나 다시 열지 못한다.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    /**
+     * tryAcquirePermission이 거절했을 때의 값.
+     */
+    public static final long REJECTED = -1;
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final String client;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final boolean[] window;
+    private final Counter rejectedCounter;
+    private final MeterRegistry meterRegistry;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private long openedAtNanos;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(String client, ResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.minimumCalls = properties.getCircuitMinimumCalls();
+        this.failureRatePercent = properties.getCircuitFailureRatePercent();
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(properties.getCircuitOpenDurationMs());
+        this.halfOpenCalls = properties.getCircuitHalfOpenCalls();
+        this.window = new boolean[properties.getCircuitWindowSize()];
+        this.meterRegistry = meterRegistry;
+        this.rejectedCounter = Counter.builder("upstream.circuit.rejected")
+                .description("Upstream calls rejected while the circuit breaker is open")
+                .tag("client", client)
+                .register(meterRegistry);
+        Gauge.builder("upstream.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .description("0=closed, 1=half-open, 2=open")
+                .tag("client", client)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return 허가한 세대. 거절하면 {@link #REJECTED}
+     */
+    public synchronized long tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openDurationNanos) {
+                rejectedCounter.increment();
+                return REJECTED;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight >= halfOpenCalls) {
+                rejectedCounter.increment();
+                return REJECTED;
+            }
+            halfOpenInFlight++;
+        }
+        return generation;
+    }
+
+    public synchronized void onSuccess(long permit) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure(long permit) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED
+                && windowCount >= minimumCalls
+                && windowFailures * 100 >= failureRatePercent * windowCount) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * 취소되었거나 업스트림 상태와 무관한 오류(4xx 등)로 끝난 호출. 집계하지 않고 시험 호출 자리만 돌려준다.
+     */
+    public synchronized void onIgnored(long permit) {
+        if (permit == generation && state == State.HALF_OPEN) {
+            halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 열린 뒤 circuitOpenDurationMs가 아직 지나지 않아 호출을 시도해도 바로 거절되는 상태인지.
+     * 대기 시간이 지나면 다음 호출이 HALF_OPEN 시험 호출이 되므로 false를 돌려준다.
+     */
+    public synchronized boolean isRejectingCalls() {
+        return state == State.OPEN && System.nanoTime() - openedAtNanos < openDurationNanos;
+    }
+
+    private void record(boolean failure) {
+        if (state != State.CLOSED) {
+            return;
+        }
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void transitionTo(State next) {
+        log.warn("업스트림 차단기 상태 전환: client={}, {} -> {}, recentFailures={}/{}",
+                client, state, next, windowFailures, windowCount);
+        state = next;
+        generation++;
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+        halfOpenInFlight = 0;
+        halfOpenSuccesses = 0;
+        if (next == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        }
+        Counter.builder("upstream.circuit.transitions")
+                .tag("client", client)
+                .tag("to", next.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+    }
+}
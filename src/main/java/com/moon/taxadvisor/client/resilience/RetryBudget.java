@@ -0,0 +1,55 @@
+package com.moon.taxadvisor.client.resilience;
+
+import com.moon.taxadvisor.config.ResilienceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * 모든 업스트림이 공유하는 재시도 예산.
+ * 첫 호출마다 retryBudgetRatio 만큼 적립하고(최대 retryBudgetMaxTokens), 재시도 한 번에 1을 쓴다.
+ * 업스트림 장애로 모든 호출이 실패해도 재시도는 전체 호출량의 retryBudgetRatio 비율을 넘지 않는다.
+ */
+@Component
+public class RetryBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private final MeterRegistry meterRegistry;
+    private double tokens;
+
+    public RetryBudget(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.ratio = properties.getRetryBudgetRatio();
+        this.maxTokens = properties.getRetryBudgetMaxTokens();
+        this.tokens = maxTokens;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("upstream.retry.budget.tokens", this, RetryBudget::availableTokens)
+                .register(meterRegistry);
+    }
+
+    public synchronized void onRequest() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    public boolean tryWithdraw(String client) {
+        boolean allowed;
+        synchronized (this) {
+            allowed = tokens >= 1;
+            if (allowed) {
+                tokens -= 1;
+            }
+        }
+        Counter.builder("upstream.retries")
+                .description("Upstream retries allowed or denied by the global retry budget")
+                .tag("client", client)
+                .tag("result", allowed ? "allowed" : "denied")
+                .register(meterRegistry)
+                .increment();
+        return allowed;
+    }
+
+    public synchronized double availableTokens() {
+        return tokens;
+    }
+}
@@ -0,0 +1,219 @@
+package com.moon.taxadvisor.client.resilience;
+
+import com.moon.taxadvisor.config.ResilienceProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.retry.Retry;
+
+/**
+ * 업스트림 클라이언트 하나를 감싸는 차단기 + 적응형 동시 호출 한도 + 지터 재시도.
+ * 순서: 차단기 허가 → 동시 호출 한도 → 호출 → 결과를 차단기/한도에 반영 → (재시도 가능 오류이면) 전역 재시도 예산 안에서 재시도.
+ * 업스트림에 실제로 보낸 호출(재시도 포함)은 보호 기능을 꺼도 upstream.calls{client, outcome, error}로 기록한다.
+ */
+@Slf4j
+public class UpstreamGuard {
+
+    private final String client;
+    private final boolean enabled;
+    private final int maxRetries;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final AimdConcurrencyLimiter limiter;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryBudget retryBudget;
+    private final MeterRegistry meterRegistry;
+
+    public UpstreamGuard(
+            String client,
+            ResilienceProperties properties,
+            long latencyThresholdMs,
+            RetryBudget retryBudget,
+            MeterRegistry meterRegistry
+    ) {
+        this.client = client;
+        this.enabled = properties.isEnabled();
+        this.maxRetries = properties.getRetryMaxAttempts();
+        this.baseBackoffMs = properties.getRetryBaseBackoffMs();
+        this.maxBackoffMs = properties.getRetryMaxBackoffMs();
+        this.limiter = new AimdConcurrencyLimiter(client, properties, latencyThresholdMs, meterRegistry);
+        this.circuitBreaker = new CircuitBreaker(client, properties, meterRegistry);
+        this.retryBudget = retryBudget;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return measured(Flux.defer(() -> call.get().flux())).singleOrEmpty();
+        }
+        return Mono.defer(() -> {
+            retryBudget.onRequest();
+            return guarded(Flux.defer(() -> call.get().flux()), false)
+                    .singleOrEmpty()
+                    .retryWhen(Retry.from(signals -> signals.concatMap(signal -> {
+                        Throwable failure = signal.failure();
+                        long attempt = signal.totalRetries() + 1;
+                        if (attempt > maxRetries || !isRetryable(failure) || !retryBudget.tryWithdraw(client)) {
+                            return Mono.error(failure);
+                        }
+                        Duration backoff = backoff(attempt);
+                        log.warn("업스트림 호출 재시도: client={}, attempt={}, backoffMs={}, cause={}",
+                                client, attempt, backoff.toMillis(), failure.toString());
+                        return Mono.delay(backoff);
+                    })));
+        });
+    }
+
+    /**
+     * 스트리밍 호출은 일부 청크가 이미 나간 뒤 다시 보낼 수 없으므로 재시도하지 않는다.
+     * 동시 호출 한도에는 전체 스트림 시간이 아니라 첫 청크까지의 시간을 반영한다.
+     */
+    public <T> Flux<T> executeMany(Supplier<Flux<T>> call) {
+        if (!enabled) {
+            return measured(Flux.defer(call));
+        }
+        return guarded(Flux.defer(call), true);
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public boolean isRejectingCalls() {
+        return circuitBreaker.isRejectingCalls();
+    }
+
+    public long latencyEstimateMs() {
+        return TimeUnit.NANOSECONDS.toMillis(limiter.getLatencyEstimateNanos());
+    }
+
+    private <T> Flux<T> guarded(Flux<T> call, boolean streaming) {
+        return Flux.defer(() -> {
+            long permit = circuitBreaker.tryAcquirePermission();
+            if (permit == CircuitBreaker.REJECTED) {
+                return Flux.error(new UpstreamRejectedException(client, "circuit-open"));
+            }
+            if (!limiter.tryAcquire()) {
+                circuitBreaker.onIgnored(permit);
+                return Flux.error(new UpstreamRejectedException(client, "concurrency-limit"));
+            }
+
+            long startedAt = System.nanoTime();
+            AtomicBoolean sampled = new AtomicBoolean(false);
+            AtomicBoolean recorded = new AtomicBoolean(false);
+            Flux<T> observed = measured(call);
+            if (streaming) {
+                observed = observed.doOnNext(ignored -> sample(streaming, sampled, startedAt, false));
+            }
+            return observed
+                    .doOnComplete(() -> {
+                        sample(streaming, sampled, startedAt, false);
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.onSuccess(permit);
+                        }
+                    })
+                    .doOnError(exception -> {
+                        sample(streaming, sampled, startedAt, isOverload(exception));
+                        if (recorded.compareAndSet(false, true)) {
+                            if (isUpstreamFailure(exception)) {
+                                circuitBreaker.onFailure(permit);
+                            } else {
+                                circuitBreaker.onIgnored(permit);
+                            }
+                        }
+                    })
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            // 호출자 마감으로 취소된 호출도 임계값을 넘겼다면 혼잡 신호로 본다.
+                            boolean slow = System.nanoTime() - startedAt > limiter.getLatencyThresholdNanos();
+                            sample(streaming, sampled, startedAt, slow);
+                            if (recorded.compareAndSet(false, true)) {
+                                circuitBreaker.onIgnored(permit);
+                            }
+                        }
+                        limiter.release();
+                    });
+        });
+    }
+
+    /**
+     * 호출당 한 번만 한도에 반영한다. 스트리밍은 첫 청크(또는 그 전에 끝난 시점)까지의 시간이다.
+     */
+    private void sample(boolean streaming, AtomicBoolean sampled, long startedAt, boolean dropped) {
+        if (!sampled.compareAndSet(false, true)) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        if (streaming) {
+            limiter.onStreamSample(elapsed, dropped);
+        } else {
+            limiter.onSample(elapsed, dropped);
+        }
+    }
+
+    private <T> Flux<T> measured(Flux<T> call) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicBoolean stopped = new AtomicBoolean(false);
+            return call
+                    .doOnComplete(() -> stop(sample, stopped, "success", "none"))
+                    .doOnError(exception -> stop(sample, stopped, "error", errorTag(exception)))
+                    .doOnCancel(() -> stop(sample, stopped, "cancelled", "none"));
+        });
+    }
+
+    private void stop(Timer.Sample sample, AtomicBoolean stopped, String outcome, String error) {
+        if (stopped.compareAndSet(false, true)) {
+            sample.stop(Timer.builder("upstream.calls")
+                    .description("Upstream HTTP calls including retries")
+                    .tag("client", client)
+                    .tag("outcome", outcome)
+                    .tag("error", error)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String errorTag(Throwable exception) {
+        if (exception instanceof UpstreamStatusException status) {
+            return String.valueOf(status.getStatusCode());
+        }
+        if (exception instanceof TimeoutException) {
+            return "timeout";
+        }
+        if (exception instanceof WebClientRequestException) {
+            return "io";
+        }
+        return "other";
+    }
+
+    private Duration backoff(long attempt) {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    private static boolean isOverload(Throwable exception) {
+        return exception instanceof TimeoutException
+                || exception instanceof UpstreamStatusException status && status.isOverload();
+    }
+
+    private static boolean isUpstreamFailure(Throwable exception) {
+        if (exception instanceof UpstreamStatusException status) {
+            return status.isServerError() || status.isOverload();
+        }
+        return exception instanceof TimeoutException || exception instanceof WebClientRequestException;
+    }
+
+    private static boolean isRetryable(Throwable exception) {
+        return isUpstreamFailure(exception);
+    }
+}
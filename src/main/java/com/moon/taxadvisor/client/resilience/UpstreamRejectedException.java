@@ -0,0 +1,19 @@
+package com.moon.taxadvisor.client.resilience;
+
+import lombok.Getter;
+
+/**
+ * 차단기가 열려 있거나 동시 호출 한도에 걸려 업스트림을 호출하지 않고 거절했을 때.
+ */
+@Getter
+public class UpstreamRejectedException extends IllegalStateException {
+
+    private final String client;
+    private final String reason;
+
+    public UpstreamRejectedException(String client, String reason) {
+        super("Upstream call rejected: client=" + client + ", reason=" + reason);
+        this.client = client;
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,25 @@
+package com.moon.taxadvisor.client.resilience;
+
+import lombok.Getter;
+
+/**
+ * 업스트림이 오류 상태 코드로 응답했을 때. 재시도/차단기 판단에 상태 코드를 쓴다.
+ */
+@Getter
+public class UpstreamStatusException extends IllegalStateException {
+
+    private final int statusCode;
+
+    public UpstreamStatusException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public boolean isOverload() {
+        return statusCode == 429 || statusCode == 503;
+    }
+
+    public boolean isServerError() {
+        return statusCode >= 500;
+    }
+}
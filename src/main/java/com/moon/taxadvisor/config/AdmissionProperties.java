@@ -0,0 +1,18 @@
+package com.moon.taxadvisor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "admission")
+public class AdmissionProperties {
+    private boolean enabled = true;
+    private int maxConcurrent = 32;
+    private int maxQueueSize = 200;
+    private int maxQueuedPerUser = 10;
+    private long maxQueueWaitMs = 10_000;
+    private double userRatePerSecond = 1.0;
+    private int userBurst = 5;
+}
@@ -0,0 +1,21 @@
+package com.moon.taxadvisor.config;
+
+import com.moon.taxadvisor.domain.DegradationTier;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "degradation")
+public class DegradationProperties {
+    private boolean enabled = true;
+    private long evaluateIntervalMs = 1_000;
+    private long targetQueueWaitMs = 2_000;
+    private long targetUpstreamLatencyMs = 12_000;
+    private double noImagePressure = 0.7;
+    private double fallbackAuditPressure = 0.9;
+    private double localOnlyPressure = 1.2;
+    private double recoveryMargin = 0.1;
+    private DegradationTier forcedTier;
+}
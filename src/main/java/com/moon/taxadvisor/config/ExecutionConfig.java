@@ -0,0 +1,32 @@
+package com.moon.taxadvisor.config;
+
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * spring.threads.virtual.enabled 하나로 실행 모드를 전환한다.
+ * true면 Tomcat 요청 처리(Spring Boot 기본 동작)와 함께 JPA/도구 실행용 blocking 스케줄러도 가상 스레드를 사용한다.
+ */
+@Configuration
+@Slf4j
+public class ExecutionConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler blockingScheduler(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreadsEnabled) {
+        if (virtualThreadsEnabled) {
+            log.info("실행 모드: virtual threads (blocking 작업을 가상 스레드에서 실행)");
+            return Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "virtual-blocking");
+        }
+        log.info("실행 모드: platform threads (blocking 작업을 boundedElastic에서 실행)");
+        return Schedulers.newBoundedElastic(
+                Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE,
+                Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE,
+                "platform-blocking"
+        );
+    }
+}
@@ -0,0 +1,13 @@
+package com.moon.taxadvisor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "execution")
+public class ExecutionProperties {
+    private boolean pinningDiagnosticsEnabled = true;
+    private long pinningThresholdMs = 20;
+}
@@ -12,4 +12,15 @@ public class GeminiProperties {
     private String apiKey = "";
     private String model = "gemini-3-flash-preview";
     private int maxIterations = 6;
+    private boolean prefetchTools = false;
+    private long latencyBudgetMs = 45_000;
+    private long iterationTimeoutMs = 20_000;
+    private long minIterationBudgetMs = 2_000;
+    private boolean slaEnabled = false;
+    private long slaDeadlineMs = 8_000;
+    private boolean slaFinishInBackground = true;
+    private int responseTimeoutSeconds = 60;
+    private boolean cacheEnabled = true;
+    private long cacheMaxSize = 1_000;
+    private long cacheTtlSeconds = 600;
 }
@@ -0,0 +1,22 @@
+package com.moon.taxadvisor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "harvest")
+public class HarvestProperties {
+    /**
+     * 0이면 제한 없음.
+     */
+    private int maxPositionsSold = 0;
+    private int minPositionsKeptPerMarket = 0;
+    private int maxSearchNodes = 200_000;
+    /**
+     * true이면 /advice 응답마다 전체 스냅샷을 읽고 최적화를 실행해 harvestPlan을 붙인다.
+     * false이면 사전 조회(prefetch)로 이미 계산된 계획만 붙이고, 그 외에는 세금 원장 한 행만 읽는다.
+     */
+    private boolean attachToAdvice = true;
+}
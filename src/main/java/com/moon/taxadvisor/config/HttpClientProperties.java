@@ -0,0 +1,21 @@
+package com.moon.taxadvisor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "http-client")
+public class HttpClientProperties {
+    private int maxConnections = 200;
+    private int pendingAcquireMaxCount = 1000;
+    private long pendingAcquireTimeoutMillis = 10_000;
+    private long maxIdleTimeSeconds = 30;
+    private long maxLifeTimeSeconds = 300;
+    private long evictInBackgroundSeconds = 30;
+    private int connectTimeoutMillis = 5_000;
+    private int readTimeoutSeconds = 90;
+    private boolean http2Enabled = true;
+    private boolean metricsEnabled = true;
+}
@@ -0,0 +1,12 @@
+package com.moon.taxadvisor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "ingest")
+public class IngestProperties {
+    private int batchSize = 5000;
+}
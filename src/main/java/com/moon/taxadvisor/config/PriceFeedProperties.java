@@ -0,0 +1,15 @@
+package com.moon.taxadvisor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "price-feed")
+public class PriceFeedProperties {
+    private boolean enabled = false;
+    private long flushIntervalMs = 1000;
+    private long simulatedTickIntervalMs = 200;
+    private double simulatedVolatilityPercent = 0.5;
+}
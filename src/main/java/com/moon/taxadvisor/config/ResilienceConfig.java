@@ -0,0 +1,45 @@
+package com.moon.taxadvisor.config;
+
+import com.moon.taxadvisor.client.resilience.RetryBudget;
+import com.moon.taxadvisor.client.resilience.UpstreamGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 업스트림(Gemini, Nano Banana)마다 차단기와 동시 호출 한도를 따로 두고, 재시도 예산은 공유한다.
+ * 상태는 upstream.limiter.*, upstream.circuit.*, upstream.retry* 메트릭으로 노출된다.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    public UpstreamGuard geminiUpstreamGuard(
+            ResilienceProperties resilienceProperties,
+            RetryBudget retryBudget,
+            MeterRegistry meterRegistry
+    ) {
+        return new UpstreamGuard(
+                "gemini",
+                resilienceProperties,
+                resilienceProperties.getGeminiLatencyThresholdMs(),
+                retryBudget,
+                meterRegistry
+        );
+    }
+
+    @Bean
+    public UpstreamGuard nanoBananaUpstreamGuard(
+            ResilienceProperties resilienceProperties,
+            RetryBudget retryBudget,
+            MeterRegistry meterRegistry
+    ) {
+        return new UpstreamGuard(
+                "nano-banana",
+                resilienceProperties,
+                resilienceProperties.getNanoBananaLatencyThresholdMs(),
+                retryBudget,
+                meterRegistry
+        );
+    }
+}
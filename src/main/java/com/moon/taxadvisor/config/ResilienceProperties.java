@@ -0,0 +1,28 @@
+package com.moon.taxadvisor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "resilience")
+public class ResilienceProperties {
+    private boolean enabled = true;
+    private int limiterInitialLimit = 20;
+    private int limiterMinLimit = 2;
+    private int limiterMaxLimit = 200;
+    private double limiterBackoffRatio = 0.9;
+    private long geminiLatencyThresholdMs = 15_000;
+    private long nanoBananaLatencyThresholdMs = 45_000;
+    private int circuitWindowSize = 20;
+    private int circuitMinimumCalls = 10;
+    private int circuitFailureRatePercent = 50;
+    private long circuitOpenDurationMs = 30_000;
+    private int circuitHalfOpenCalls = 3;
+    private int retryMaxAttempts = 2;
+    private long retryBaseBackoffMs = 200;
+    private long retryMaxBackoffMs = 2_000;
+    private double retryBudgetRatio = 0.1;
+    private int retryBudgetMaxTokens = 10;
+}
@@ -0,0 +1,24 @@
+package com.moon.taxadvisor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "simulation")
+public class SimulationProperties {
+    private int defaultPaths = 100_000;
+    private int maxPaths = 2_000_000;
+    private double annualVolatilityPercent = 30.0;
+    private double annualDriftPercent = 5.0;
+    private int pathsPerTask = 2_048;
+    /**
+     * 전용 ForkJoinPool의 병렬도. 0이면 코어 수.
+     */
+    private int parallelism = 0;
+    /**
+     * 동시에 실행할 수 있는 시뮬레이션 수. 넘으면 429로 거절한다.
+     */
+    private int maxConcurrentRuns = 2;
+}
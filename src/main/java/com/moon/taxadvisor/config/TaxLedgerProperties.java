@@ -0,0 +1,14 @@
+package com.moon.taxadvisor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "tax-ledger")
+public class TaxLedgerProperties {
+    private boolean rebuildOnStartup = true;
+    private boolean verifyEnabled = true;
+    private boolean repairOnVerify = true;
+}
@@ -0,0 +1,27 @@
+package com.moon.taxadvisor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "tool-result")
+public class ToolResultProperties {
+    private Layout layout = Layout.COLUMNAR;
+    /**
+     * 압축 전 크기를 재기 위해 원본을 한 번 더 직렬화할 호출 비율. 0이면 재지 않고, 1이면 매번 잰다.
+     */
+    private double rawSizeSampleRate = 0.01;
+
+    public enum Layout {
+        /**
+         * 같은 필드 구성의 객체 배열을 {columns, rows} 표로 보낸다.
+         */
+        COLUMNAR,
+        /**
+         * 객체 배열을 그대로 보낸다. 숫자 압축과 null 제거만 적용한다.
+         */
+        ROWS
+    }
+}
@@ -0,0 +1,106 @@
+package com.moon.taxadvisor.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 가상 스레드 모드에서 JFR jdk.VirtualThreadPinned 이벤트를 구독해 캐리어 스레드 고정(pinning)을 진단한다.
+ * {@link #observe}로 감싼 구간(예: PortfolioQueryService의 JPA 호출)에서 발생한 pinning은 구간 이름과 함께 기록된다.
+ */
+@Component
+@Slf4j
+public class VirtualThreadPinningMonitor implements InitializingBean, DisposableBean {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final boolean enabled;
+    private final long thresholdMs;
+    private final Map<Long, String> activeOperations = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> pinnedCountByOperation = new ConcurrentHashMap<>();
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreadsEnabled,
+            ExecutionProperties executionProperties
+    ) {
+        this.enabled = virtualThreadsEnabled && executionProperties.isPinningDiagnosticsEnabled();
+        this.thresholdMs = executionProperties.getPinningThresholdMs();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT)
+                .withThreshold(Duration.ofMillis(thresholdMs))
+                .withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+        log.info("가상 스레드 pinning 진단 활성화: thresholdMs={}", thresholdMs);
+    }
+
+    @Override
+    public void destroy() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    public <T> T observe(String operation, Supplier<T> call) {
+        Thread current = Thread.currentThread();
+        if (!enabled || !current.isVirtual()) {
+            return call.get();
+        }
+        long threadId = current.threadId();
+        activeOperations.put(threadId, operation);
+        try {
+            return call.get();
+        } finally {
+            activeOperations.remove(threadId);
+        }
+    }
+
+    public Map<String, Long> pinnedCounts() {
+        Map<String, Long> snapshot = new ConcurrentHashMap<>();
+        pinnedCountByOperation.forEach((operation, count) -> snapshot.put(operation, count.get()));
+        return snapshot;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        long threadId = event.getThread() == null ? -1 : event.getThread().getJavaThreadId();
+        String operation = activeOperations.getOrDefault(threadId, "(unobserved)");
+        pinnedCountByOperation.computeIfAbsent(operation, ignored -> new AtomicLong()).incrementAndGet();
+        log.warn(
+                "가상 스레드 pinning 감지: operation={}, durationMs={}, frame={}",
+                operation,
+                event.getDuration().toMillis(),
+                firstApplicationFrame(event)
+        );
+    }
+
+    private String firstApplicationFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "(no stack trace)";
+        }
+        return event.getStackTrace().getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber())
+                .filter(frame -> frame.startsWith("com.moon.taxadvisor"))
+                .findFirst()
+                .orElse("(outside application code)");
+    }
+}
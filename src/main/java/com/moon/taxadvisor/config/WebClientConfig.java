@@ -1,14 +1,116 @@
 package com.moon.taxadvisor.config;
 
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+/**
+ * 업스트림(Gemini, Nano Banana)마다 하나의 장수명 WebClient와 커넥션 풀을 둔다.
+ * 풀 사용량/대기 획득 수는 reactor.netty.connection.provider.* 메트릭으로 노출된다.
+ */
 @Configuration
 public class WebClientConfig {
 
+    private static final int MAX_IN_MEMORY_IMAGE_RESPONSE_BYTES = 50 * 1024 * 1024;
+
     @Bean
     public WebClient.Builder webClientBuilder() {
         return WebClient.builder();
     }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider geminiConnectionProvider(HttpClientProperties httpClientProperties) {
+        return buildConnectionProvider("gemini", httpClientProperties);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider nanoBananaConnectionProvider(HttpClientProperties httpClientProperties) {
+        return buildConnectionProvider("nano-banana", httpClientProperties);
+    }
+
+    @Bean
+    public WebClient geminiWebClient(
+            WebClient.Builder webClientBuilder,
+            GeminiProperties geminiProperties,
+            HttpClientProperties httpClientProperties
+    ) {
+        HttpClient httpClient = buildHttpClient(
+                geminiConnectionProvider(httpClientProperties),
+                geminiProperties.getBaseUrl(),
+                Duration.ofSeconds(geminiProperties.getResponseTimeoutSeconds()),
+                httpClientProperties
+        );
+        return webClientBuilder.clone()
+                .baseUrl(geminiProperties.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    @Bean
+    public WebClient nanoBananaWebClient(
+            WebClient.Builder webClientBuilder,
+            NanoBananaProperties nanoBananaProperties,
+            HttpClientProperties httpClientProperties
+    ) {
+        HttpClient httpClient = buildHttpClient(
+                nanoBananaConnectionProvider(httpClientProperties),
+                nanoBananaProperties.getBaseUrl(),
+                Duration.ofSeconds(nanoBananaProperties.getTimeoutSeconds()),
+                httpClientProperties
+        );
+        return webClientBuilder.clone()
+                .baseUrl(nanoBananaProperties.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_IN_MEMORY_IMAGE_RESPONSE_BYTES))
+                .build();
+    }
+
+    private ConnectionProvider buildConnectionProvider(String name, HttpClientProperties properties) {
+        return ConnectionProvider.builder(name)
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(Duration.ofMillis(properties.getPendingAcquireTimeoutMillis()))
+                .maxIdleTime(Duration.ofSeconds(properties.getMaxIdleTimeSeconds()))
+                .maxLifeTime(Duration.ofSeconds(properties.getMaxLifeTimeSeconds()))
+                .evictInBackground(Duration.ofSeconds(properties.getEvictInBackgroundSeconds()))
+                .lifo()
+                .metrics(properties.isMetricsEnabled())
+                .build();
+    }
+
+    private HttpClient buildHttpClient(
+            ConnectionProvider connectionProvider,
+            String baseUrl,
+            Duration responseTimeout,
+            HttpClientProperties properties
+    ) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, properties.getConnectTimeoutMillis())
+                .responseTimeout(responseTimeout)
+                .doOnConnected(connection -> connection.addHandlerLast(
+                        new ReadTimeoutHandler(properties.getReadTimeoutSeconds(), TimeUnit.SECONDS)))
+                .metrics(properties.isMetricsEnabled(), WebClientConfig::stripQuery);
+
+        if (properties.isHttp2Enabled() && baseUrl.startsWith("https://")) {
+            httpClient = httpClient
+                    .protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                    .secure();
+        }
+        return httpClient;
+    }
+
+    private static String stripQuery(String uri) {
+        int queryStart = uri.indexOf('?');
+        return queryStart < 0 ? uri : uri.substring(0, queryStart);
+    }
 }
@@ -0,0 +1,67 @@
+package com.moon.taxadvisor.controller;
+
+import com.moon.taxadvisor.service.TradeIngestService;
+import com.moon.taxadvisor.service.TradeIngestService.IngestFailedException;
+import com.moon.taxadvisor.service.TradeIngestService.IngestFormat;
+import com.moon.taxadvisor.service.TradeIngestService.IngestResult;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.Locale;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 증권사 연말 거래 내역(CSV 또는 NDJSON) 대량 적재 API.
+ * Content-Type에 json이 포함되면 NDJSON, 그 외에는 CSV로 읽는다.
+ */
+@RestController
+@RequestMapping("/api/ingest")
+@RequiredArgsConstructor
+@Slf4j
+public class IngestController {
+
+    private final TradeIngestService tradeIngestService;
+
+    @PostMapping("/portfolio")
+    public IngestResult ingestPortfolio(HttpServletRequest request) throws IOException {
+        return tradeIngestService.ingestPortfolios(request.getInputStream(), resolveFormat(request));
+    }
+
+    @PostMapping("/realized-gains")
+    public IngestResult ingestRealizedGains(HttpServletRequest request) throws IOException {
+        return tradeIngestService.ingestRealizedGains(request.getInputStream(), resolveFormat(request));
+    }
+
+    /**
+     * 파싱/검증 오류만 400으로 돌려주고, DB나 입출력 오류는 500으로 돌려준다. 어느 쪽이든 이미 커밋된 행 수를 알려준다.
+     */
+    @ExceptionHandler(IngestFailedException.class)
+    public ResponseEntity<IngestError> handleIngestFailure(IngestFailedException exception) {
+        if (exception.isInvalidInput()) {
+            log.warn("대량 적재 요청 거절: table={}, committedRows={}, reason={}",
+                    exception.getTable(), exception.getCommittedRows(), exception.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new IngestError(exception.getTable(), exception.getCommittedRows(), exception.getMessage()));
+        }
+        log.error("대량 적재 요청 실패: table={}, committedRows={}",
+                exception.getTable(), exception.getCommittedRows(), exception);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new IngestError(exception.getTable(), exception.getCommittedRows(), "ingest failed"));
+    }
+
+    private IngestFormat resolveFormat(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json")
+                ? IngestFormat.NDJSON
+                : IngestFormat.CSV;
+    }
+
+    public record IngestError(String table, long committedRows, String error) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.moon.taxadvisor.controller;
+
+import com.moon.taxadvisor.service.HarvestTimingSimulator;
+import com.moon.taxadvisor.service.HarvestTimingSimulator.SimulationBusyException;
+import com.moon.taxadvisor.service.HarvestTimingSimulator.SimulationRequest;
+import com.moon.taxadvisor.service.HarvestTimingSimulator.SimulationResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/simulation")
+@RequiredArgsConstructor
+@Slf4j
+public class SimulationController {
+
+    private static final String DEFAULT_USER_ID = "me";
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final HarvestTimingSimulator harvestTimingSimulator;
+
+    @PostMapping("/harvest-timing")
+    public Mono<SimulationResult> simulateHarvestTiming(@RequestBody(required = false) SimulationRequest request) {
+        SimulationRequest resolved = request == null ? new SimulationRequest(null, null, null, null) : request;
+        log.info("손절 시점 시뮬레이션 요청 수신: userId={}, paths={}", DEFAULT_USER_ID, resolved.paths());
+        return harvestTimingSimulator.simulate(DEFAULT_USER_ID, resolved);
+    }
+
+    @ExceptionHandler(SimulationBusyException.class)
+    public ResponseEntity<SimulationError> handleBusy(SimulationBusyException exception) {
+        log.warn("손절 시점 시뮬레이션 거절: {}", exception.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS))
+                .body(new SimulationError("simulation-busy", RETRY_AFTER_SECONDS));
+    }
+
+    public record SimulationError(String reason, long retryAfterSeconds) {
+    }
+}
@@ -1,20 +1,40 @@
 package com.moon.taxadvisor.controller;
 
+import com.moon.taxadvisor.domain.DegradationTier;
+import com.moon.taxadvisor.service.AdviceAdmissionService;
+import com.moon.taxadvisor.service.AdviceAdmissionService.AdmissionRejectedException;
+import com.moon.taxadvisor.service.AdvicePipelineMetrics;
+import com.moon.taxadvisor.service.AdviceRequestCoalescer;
+import com.moon.taxadvisor.service.DegradationManager;
 import com.moon.taxadvisor.service.TaxAuditAgentService;
 import com.moon.taxadvisor.service.TaxAdvisorAgentService;
 import com.moon.taxadvisor.service.TaxAdvisorAgentService.AgentResult;
+import com.moon.taxadvisor.service.TaxAdvisorAgentService.AgentTrace;
+import com.moon.taxadvisor.service.TaxAdvisorAgentService.PreparedAdvice;
+import com.moon.taxadvisor.service.TaxAdvisorAgentService.StreamDelta;
 import com.moon.taxadvisor.service.TaxCalculationService.TaxPreview;
 import com.moon.taxadvisor.service.TaxGraphicAgentService;
+import com.moon.taxadvisor.service.TaxLossHarvestOptimizer.HarvestPlan;
 import com.moon.taxadvisor.tool.TaxToolDefinitions;
+import io.micrometer.core.instrument.Timer;
 import java.util.List;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api")
@@ -22,23 +42,191 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class TaxAdvisorController {
 
+    private static final String DEFAULT_USER_ID = "me";
+
     private final TaxAdvisorAgentService taxAdvisorAgentService;
     private final TaxAuditAgentService taxAuditAgentService;
     private final TaxGraphicAgentService taxGraphicAgentService;
     private final TaxToolDefinitions taxToolDefinitions;
+    private final AdviceRequestCoalescer adviceRequestCoalescer;
+    private final AdviceAdmissionService adviceAdmissionService;
+    private final DegradationManager degradationManager;
+    private final AdvicePipelineMetrics advicePipelineMetrics;
 
+    /**
+     * X-User-Id는 수락 제어(요청 속도 제한, 공정 대기열)의 호출자 키로만 쓴다. 분석 대상 데이터는 userId=me로 고정이다.
+     */
     @PostMapping("/advice")
-    public AdviceResponse getAdvice(@RequestBody AdviceRequest request) {
+    public AdviceResponse getAdvice(
+            @RequestHeader(value = "X-User-Id", defaultValue = DEFAULT_USER_ID) String callerId,
+            @RequestBody AdviceRequest request
+    ) {
         log.info("Advice Pipeline 시작: Agent 1 -> Agent 2 -> Agent 3");
-        PipelineResult pipelineResult = executePipeline(request.question());
-        return AdviceResponse.from(
-                request.question(),
-                pipelineResult.primaryResult(),
-                pipelineResult.auditReview(),
-                pipelineResult.base64Image()
+        PipelineResult pipelineResult = adviceAdmissionService.admit(
+                        callerId,
+                        () -> advicePipelineMetrics.track(adviceRequestCoalescer.coalesce(
+                                DEFAULT_USER_ID,
+                                request.question(),
+                                () -> Mono.fromCallable(() -> executePipeline(request.question()))
+                        ))
+                )
+                .block();
+        return respond(request.question(), pipelineResult);
+    }
+
+    @PostMapping("/advice/reactive")
+    public Mono<AdviceResponse> getAdviceReactive(
+            @RequestHeader(value = "X-User-Id", defaultValue = DEFAULT_USER_ID) String callerId,
+            @RequestBody AdviceRequest request
+    ) {
+        log.info("Reactive Advice Pipeline 시작: Agent 1 -> Agent 2 -> Agent 3");
+        return adviceAdmissionService.admit(
+                        callerId,
+                        () -> advicePipelineMetrics.track(adviceRequestCoalescer.coalesce(
+                                DEFAULT_USER_ID,
+                                request.question(),
+                                () -> executePipelineReactive(request.question())
+                        ))
+                )
+                .map(pipelineResult -> respond(request.question(), pipelineResult));
+    }
+
+    @PostMapping(value = "/advice/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamAdvice(
+            @RequestHeader(value = "X-User-Id", defaultValue = DEFAULT_USER_ID) String callerId,
+            @RequestBody AdviceRequest request
+    ) {
+        return adviceAdmissionService.admitMany(
+                callerId,
+                () -> advicePipelineMetrics.track(executeStreamPipeline(request.question()))
         );
     }
 
+    @PostMapping(value = "/advice/stream/tokens", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamAdviceTokens(
+            @RequestHeader(value = "X-User-Id", defaultValue = DEFAULT_USER_ID) String callerId,
+            @RequestBody AdviceRequest request
+    ) {
+        return adviceAdmissionService.admitMany(
+                callerId,
+                () -> advicePipelineMetrics.track(executeTokenStream(request.question()))
+        );
+    }
+
+    private Flux<ServerSentEvent<Object>> executeStreamPipeline(String question) {
+        log.info("Streaming Advice Pipeline 시작: preview -> strategy -> audit -> image");
+        long pipelineStartedAt = System.currentTimeMillis();
+        DegradationTier tier = degradationManager.currentTier();
+        degradationManager.recordRequest(tier);
+
+        Mono<PreparedAdvice> prepared = taxAdvisorAgentService.prepareReactive().cache();
+        Mono<AgentResult> primary = prepared
+                .flatMap(preparedAdvice -> tier.usesModel()
+                        ? taxAdvisorAgentService.adviseReactive(question, preparedAdvice)
+                        : taxAdvisorAgentService.adviseLocalReactive(preparedAdvice))
+                .cache();
+        Mono<String> audit = primary
+                .flatMap(primaryResult -> tier.liveAudit()
+                        ? taxAuditAgentService.auditReactive(question, primaryResult.answer())
+                        : Mono.just(taxAuditAgentService.fallbackAudit()))
+                .cache();
+        Mono<String> image = !tier.generatesImage()
+                ? Mono.empty()
+                : Mono.zip(primary, audit)
+                        .flatMap(results -> taxGraphicAgentService.createInfographicReactive(
+                                question,
+                                results.getT1().answer(),
+                                results.getT2()
+                        ));
+
+        return Flux.concat(
+                        Mono.fromSupplier(() -> stageEvent(
+                                "degradation",
+                                new DegradationEvent(tier.name()),
+                                pipelineStartedAt
+                        )),
+                        prepared.map(preparedAdvice -> stageEvent("preview", preparedAdvice.preview(), pipelineStartedAt)),
+                        primary.map(primaryResult -> stageEvent(
+                                "strategy",
+                                new StrategyEvent(
+                                        primaryResult.answer(),
+                                        primaryResult.iterations(),
+                                        primaryResult.fallbackUsed()
+                                ),
+                                pipelineStartedAt
+                        )),
+                        audit.map(auditReview -> stageEvent("audit", new AuditEvent(auditReview), pipelineStartedAt)),
+                        image.map(base64Image -> stageEvent("image", new ImageEvent(base64Image), pipelineStartedAt))
+                )
+                .doOnComplete(() -> log.info(
+                        "Streaming Advice Pipeline 완료: totalElapsedMs={}",
+                        System.currentTimeMillis() - pipelineStartedAt
+                ));
+    }
+
+    /**
+     * LOCAL_ONLY이면 로컬 권고안을 strategy-fallback 한 건으로, FALLBACK_AUDIT 이상이면 AUDIT_FALLBACK을 audit-delta 한 건으로 보낸다.
+     */
+    private Flux<ServerSentEvent<Object>> executeTokenStream(String question) {
+        long pipelineStartedAt = System.currentTimeMillis();
+        DegradationTier tier = degradationManager.currentTier();
+        degradationManager.recordRequest(tier);
+        log.info("Token Streaming Advice 시작: Agent 1 -> Agent 2, tier={}", tier);
+
+        Flux<StreamDelta> strategyDeltas = tier.usesModel()
+                ? taxAdvisorAgentService.adviseStream(question).cache()
+                : taxAdvisorAgentService.adviseLocalReactive()
+                        .map(localResult -> StreamDelta.fallback(localResult.answer()))
+                        .flux()
+                        .cache();
+        Flux<String> auditTokens = strategyDeltas
+                .reduceWith(StringBuilder::new, TaxAdvisorController::applyDelta)
+                .map(StringBuilder::toString)
+                .flatMapMany(primaryAnswer -> tier.liveAudit()
+                        ? taxAuditAgentService.auditStream(question, primaryAnswer)
+                        : Flux.just(taxAuditAgentService.fallbackAudit()));
+
+        return Flux.concat(
+                        Mono.fromSupplier(() -> stageEvent(
+                                "degradation",
+                                new DegradationEvent(tier.name()),
+                                pipelineStartedAt
+                        )),
+                        strategyDeltas.map(TaxAdvisorController::strategyEvent),
+                        auditTokens.map(token -> ServerSentEvent.<Object>builder(token).event("audit-delta").build())
+                )
+                .doOnComplete(() -> log.info(
+                        "Token Streaming Advice 완료: totalElapsedMs={}",
+                        System.currentTimeMillis() - pipelineStartedAt
+                ));
+    }
+
+    /**
+     * strategy-delta는 답변 조각, strategy-reset은 지금까지 받은 조각을 버리라는 신호, strategy-fallback은 로컬 권고안 전체다.
+     */
+    private static ServerSentEvent<Object> strategyEvent(StreamDelta delta) {
+        String eventName = switch (delta.kind()) {
+            case TEXT -> "strategy-delta";
+            case RESET -> "strategy-reset";
+            case FALLBACK -> "strategy-fallback";
+        };
+        return ServerSentEvent.<Object>builder(delta.text()).event(eventName).build();
+    }
+
+    private static StringBuilder applyDelta(StringBuilder answer, StreamDelta delta) {
+        if (delta.kind() != StreamDelta.Kind.TEXT) {
+            answer.setLength(0);
+        }
+        return answer.append(delta.text());
+    }
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<AdmissionError> handleAdmissionRejected(AdmissionRejectedException exception) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(new AdmissionError(exception.getReason(), exception.getRetryAfterSeconds()));
+    }
+
     @GetMapping("/tools")
     public List<Map<String, Object>> getTools() {
         return taxToolDefinitions.asJsonSpec();
@@ -47,6 +235,9 @@ public class TaxAdvisorController {
     public record AdviceRequest(String question) {
     }
 
+    public record AdmissionError(String reason, long retryAfterSeconds) {
+    }
+
     public record AdviceResponse(
             String userId,
             String question,
@@ -55,71 +246,186 @@ public class TaxAdvisorController {
             String base64Image,
             int iterations,
             boolean fallbackUsed,
-            TaxPreview taxPreview
+            TaxPreview taxPreview,
+            HarvestPlan harvestPlan,
+            AgentTrace agentTrace,
+            String degradationTier
     ) {
         private static AdviceResponse from(
                 String question,
                 AgentResult result,
                 String auditReview,
-                String base64Image
+                String base64Image,
+                DegradationTier tier
         ) {
             return new AdviceResponse(
-                    "me",
+                    DEFAULT_USER_ID,
                     question,
                     result.answer(),
                     auditReview,
                     base64Image,
                     result.iterations(),
                     result.fallbackUsed(),
-                    result.taxPreview()
+                    result.taxPreview(),
+                    result.harvestPlan(),
+                    result.trace(),
+                    tier.name()
             );
         }
     }
 
+    public record StrategyEvent(String primaryStrategy, int iterations, boolean fallbackUsed) {
+    }
+
+    public record AuditEvent(String auditReview) {
+    }
+
+    public record ImageEvent(String base64Image) {
+    }
+
+    public record DegradationEvent(String tier) {
+    }
+
+    /**
+     * 합쳐진(coalesced) 요청도 각자 응답을 받으므로 크기는 응답마다 기록한다.
+     */
+    private AdviceResponse respond(String question, PipelineResult pipelineResult) {
+        advicePipelineMetrics.recordPayload(
+                question,
+                pipelineResult.primaryResult().answer(),
+                pipelineResult.auditReview(),
+                pipelineResult.base64Image()
+        );
+        return AdviceResponse.from(
+                question,
+                pipelineResult.primaryResult(),
+                pipelineResult.auditReview(),
+                pipelineResult.base64Image(),
+                pipelineResult.tier()
+        );
+    }
+
+    private ServerSentEvent<Object> stageEvent(String eventName, Object data, long pipelineStartedAt) {
+        log.info("Streaming 이벤트 전송: event={}, elapsedMs={}", eventName, System.currentTimeMillis() - pipelineStartedAt);
+        return ServerSentEvent.<Object>builder(data)
+                .event(eventName)
+                .build();
+    }
+
+    /**
+     * 파이프라인 단계(DegradationTier)는 시작할 때 한 번 읽어 세 단계 모두에 같은 값을 적용한다.
+     */
     private PipelineResult executePipeline(String question) {
-        long pipelineStartedAt = System.currentTimeMillis();
+        Timer.Sample pipelineSample = advicePipelineMetrics.start();
+        DegradationTier tier = degradationManager.currentTier();
+        degradationManager.recordRequest(tier);
 
-        log.info("Pipeline Stage 1: Agent 1 전략 수립 시작");
-        long stage1StartedAt = System.currentTimeMillis();
-        AgentResult primaryResult = taxAdvisorAgentService.advise(question);
+        log.info("Pipeline Stage 1: Agent 1 전략 수립 시작, tier={}", tier);
+        Timer.Sample stage1Sample = advicePipelineMetrics.start();
+        AgentResult primaryResult = tier.usesModel()
+                ? taxAdvisorAgentService.advise(question)
+                : taxAdvisorAgentService.adviseLocalReactive().block();
+        recordStrategy(primaryResult, stage1Sample, tier);
+
+        log.info("Pipeline Stage 2: Agent 2 리스크 감사 시작");
+        Timer.Sample stage2Sample = advicePipelineMetrics.start();
+        String auditReview = tier.liveAudit()
+                ? taxAuditAgentService.audit(question, primaryResult.answer())
+                : taxAuditAgentService.fallbackAudit();
+        recordAudit(auditReview, stage2Sample, tier);
+
+        log.info("Pipeline Stage 3: Agent 3 인포그래픽 생성 시작");
+        Timer.Sample stage3Sample = advicePipelineMetrics.start();
+        String base64Image = tier.generatesImage()
+                ? taxGraphicAgentService.createInfographic(question, primaryResult.answer(), auditReview)
+                : "";
+        recordImage(base64Image, stage3Sample, tier);
+        log.info("Advice Pipeline 완료: totalElapsedMs={}", advicePipelineMetrics.recordStage(pipelineSample, "total", tier));
+
+        return new PipelineResult(primaryResult, auditReview, base64Image, tier);
+    }
+
+    private Mono<PipelineResult> executePipelineReactive(String question) {
+        return Mono.defer(() -> {
+            Timer.Sample pipelineSample = advicePipelineMetrics.start();
+            DegradationTier tier = degradationManager.currentTier();
+            degradationManager.recordRequest(tier);
+            log.info("Pipeline Stage 1: Agent 1 전략 수립 시작, tier={}", tier);
+            Timer.Sample stage1Sample = advicePipelineMetrics.start();
+            Mono<AgentResult> primary = tier.usesModel()
+                    ? taxAdvisorAgentService.adviseReactive(question)
+                    : taxAdvisorAgentService.adviseLocalReactive();
+
+            return primary
+                    .doOnNext(primaryResult -> recordStrategy(primaryResult, stage1Sample, tier))
+                    .flatMap(primaryResult -> {
+                        log.info("Pipeline Stage 2: Agent 2 리스크 감사 시작");
+                        Timer.Sample stage2Sample = advicePipelineMetrics.start();
+                        Mono<String> audit = tier.liveAudit()
+                                ? taxAuditAgentService.auditReactive(question, primaryResult.answer())
+                                : Mono.just(taxAuditAgentService.fallbackAudit());
+                        return audit
+                                .doOnNext(auditReview -> recordAudit(auditReview, stage2Sample, tier))
+                                .flatMap(auditReview -> {
+                                    log.info("Pipeline Stage 3: Agent 3 인포그래픽 생성 시작");
+                                    Timer.Sample stage3Sample = advicePipelineMetrics.start();
+                                    Mono<String> image = tier.generatesImage()
+                                            ? taxGraphicAgentService.createInfographicReactive(
+                                                    question,
+                                                    primaryResult.answer(),
+                                                    auditReview
+                                            )
+                                            : Mono.just("");
+                                    return image
+                                            .doOnNext(base64Image -> recordImage(base64Image, stage3Sample, tier))
+                                            .map(base64Image -> new PipelineResult(primaryResult, auditReview, base64Image, tier));
+                                });
+                    })
+                    .doOnNext(pipelineResult -> log.info(
+                            "Advice Pipeline 완료: totalElapsedMs={}",
+                            advicePipelineMetrics.recordStage(pipelineSample, "total", tier)
+                    ));
+        });
+    }
+
+    private void recordStrategy(AgentResult primaryResult, Timer.Sample sample, DegradationTier tier) {
+        advicePipelineMetrics.recordAgentResult("strategy", tier.usesModel(), primaryResult.fallbackUsed());
         log.info(
                 "Pipeline Stage 1 완료: answerLength={}, iterations={}, fallbackUsed={}, elapsedMs={}",
                 primaryResult.answer().length(),
                 primaryResult.iterations(),
                 primaryResult.fallbackUsed(),
-                System.currentTimeMillis() - stage1StartedAt
+                advicePipelineMetrics.recordStage(sample, "strategy", tier)
         );
+    }
 
-        log.info("Pipeline Stage 2: Agent 2 리스크 감사 시작");
-        long stage2StartedAt = System.currentTimeMillis();
-        String auditReview = taxAuditAgentService.audit(question, primaryResult.answer());
+    private void recordAudit(String auditReview, Timer.Sample sample, DegradationTier tier) {
+        advicePipelineMetrics.recordAgentResult(
+                "audit",
+                tier.liveAudit(),
+                auditReview.equals(taxAuditAgentService.fallbackAudit())
+        );
         log.info(
                 "Pipeline Stage 2 완료: auditLength={}, elapsedMs={}",
                 auditReview.length(),
-                System.currentTimeMillis() - stage2StartedAt
+                advicePipelineMetrics.recordStage(sample, "audit", tier)
         );
+    }
 
-        log.info("Pipeline Stage 3: Agent 3 인포그래픽 생성 시작");
-        long stage3StartedAt = System.currentTimeMillis();
-        String base64Image = taxGraphicAgentService.createInfographic(
-                question,
-                primaryResult.answer(),
-                auditReview
-        );
+    private void recordImage(String base64Image, Timer.Sample sample, DegradationTier tier) {
+        advicePipelineMetrics.recordAgentResult("image", tier.generatesImage(), base64Image.isBlank());
         log.info(
                 "Pipeline Stage 3 완료: imageGenerated={}, elapsedMs={}",
                 !base64Image.isBlank(),
-                System.currentTimeMillis() - stage3StartedAt
+                advicePipelineMetrics.recordStage(sample, "image", tier)
         );
-        log.info("Advice Pipeline 완료: totalElapsedMs={}", System.currentTimeMillis() - pipelineStartedAt);
-
-        return new PipelineResult(primaryResult, auditReview, base64Image);
     }
 
     private record PipelineResult(
             AgentResult primaryResult,
             String auditReview,
-            String base64Image
+            String base64Image,
+            DegradationTier tier
     ) {
     }
 }
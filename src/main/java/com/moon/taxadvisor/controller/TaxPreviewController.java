@@ -0,0 +1,58 @@
+package com.moon.taxadvisor.controller;
+
+import com.moon.taxadvisor.service.TaxCalculationService;
+import com.moon.taxadvisor.service.TaxCalculationService.UserTaxPreview;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/tax-preview")
+@RequiredArgsConstructor
+@Slf4j
+public class TaxPreviewController {
+
+    private final TaxCalculationService taxCalculationService;
+
+    /**
+     * 요청 본문: 한 줄에 사용자 ID 하나 (text/plain 또는 NDJSON 문자열).
+     * 응답: 사용자별 TaxPreview를 NDJSON으로 계산되는 즉시 흘려보낸다.
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserTaxPreview> batchPreview(HttpServletRequest request) {
+        log.info("일괄 세금 미리보기 요청 수신");
+        return Flux.using(
+                        () -> new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8)),
+                        reader -> taxCalculationService.calculatePreviews(Flux.fromStream(reader.lines())
+                                .map(TaxPreviewController::toUserId)
+                                .filter(userId -> !userId.isEmpty())),
+                        TaxPreviewController::closeQuietly
+                )
+                .doOnComplete(() -> log.info("일괄 세금 미리보기 전송 완료"));
+    }
+
+    private static String toUserId(String line) {
+        String trimmed = line.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    private static void closeQuietly(BufferedReader reader) {
+        try {
+            reader.close();
+        } catch (IOException exception) {
+            log.warn("요청 본문 스트림을 닫지 못했습니다.", exception);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.moon.taxadvisor.domain;
+
+/**
+ * 부하에 따른 절세 분석 파이프라인 단계. 아래로 갈수록 비싼 단계를 더 많이 건너뛴다.
+ */
+public enum DegradationTier {
+    /**
+     * Agent 1 → Agent 2 → Agent 3 전체 실행.
+     */
+    FULL,
+    /**
+     * 인포그래픽 생성(Agent 3)을 건너뛴다.
+     */
+    NO_IMAGE,
+    /**
+     * 이미지 생략에 더해 리스크 감사(Agent 2)를 AUDIT_FALLBACK 으로 대신한다.
+     */
+    FALLBACK_AUDIT,
+    /**
+     * Gemini를 호출하지 않고 세금 원장 기반 로컬 권고안만 돌려준다.
+     */
+    LOCAL_ONLY;
+
+    public boolean usesModel() {
+        return this != LOCAL_ONLY;
+    }
+
+    public boolean liveAudit() {
+        return this == FULL || this == NO_IMAGE;
+    }
+
+    public boolean generatesImage() {
+        return this == FULL;
+    }
+}
@@ -0,0 +1,51 @@
+package com.moon.taxadvisor.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * tax_ledger 한 행에 더할 변화량. 보유 종목 한 건 또는 확정 손익 한 건의 기여분을 나타낸다.
+ */
+public record LedgerDelta(
+        BigDecimal realizedTotal,
+        BigDecimal unrealizedLoss,
+        BigDecimal costBasis,
+        BigDecimal marketValue
+) {
+
+    public static final LedgerDelta ZERO =
+            new LedgerDelta(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+
+    public static LedgerDelta ofPosition(BigDecimal averagePrice, BigDecimal currentPrice, long quantity) {
+        long averageCents = Money.fromBigDecimal(averagePrice);
+        long currentCents = Money.fromBigDecimal(currentPrice);
+        long unrealizedGain = Money.multiply(Money.subtract(currentCents, averageCents), quantity);
+        return new LedgerDelta(
+                BigDecimal.ZERO,
+                Money.toBigDecimal(Money.negativePart(unrealizedGain)),
+                Money.toBigDecimal(Money.multiply(averageCents, quantity)),
+                Money.toBigDecimal(Money.multiply(currentCents, quantity))
+        );
+    }
+
+    public static LedgerDelta ofRealizedGain(BigDecimal gainAmount) {
+        return new LedgerDelta(gainAmount, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    public LedgerDelta plus(LedgerDelta other) {
+        return new LedgerDelta(
+                realizedTotal.add(other.realizedTotal),
+                unrealizedLoss.add(other.unrealizedLoss),
+                costBasis.add(other.costBasis),
+                marketValue.add(other.marketValue)
+        );
+    }
+
+    public LedgerDelta negate() {
+        return new LedgerDelta(
+                realizedTotal.negate(),
+                unrealizedLoss.negate(),
+                costBasis.negate(),
+                marketValue.negate()
+        );
+    }
+}
@@ -0,0 +1,89 @@
+package com.moon.taxadvisor.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 원화 금액을 소수 둘째 자리까지 100배한 long(전 단위)으로 다루는 고정소수점 연산.
+ * DECIMAL(19, 2) 컬럼과 같은 정밀도이며 오버플로는 ArithmeticException으로 드러낸다.
+ * BigDecimal 변환은 엔티티/응답 같은 API 경계에서만 한다.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    public static final long ONE_WON = 100;
+
+    private Money() {
+    }
+
+    public static long fromBigDecimal(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    public static long add(long left, long right) {
+        return Math.addExact(left, right);
+    }
+
+    public static long subtract(long left, long right) {
+        return Math.subtractExact(left, right);
+    }
+
+    public static long multiply(long cents, long quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    public static long negativePart(long cents) {
+        return Math.min(cents, 0);
+    }
+
+    public static long floorToZero(long value) {
+        return Math.max(value, 0);
+    }
+
+    /**
+     * 원 단위로 반올림(HALF_UP). 반환값은 원 단위 정수다.
+     */
+    public static long roundToWon(long cents) {
+        return divideHalfUp(cents, ONE_WON);
+    }
+
+    /**
+     * cents * (numerator / denominator)를 원 단위로 반올림(HALF_UP)한다. 예: 22% 세율은 (22, 100).
+     */
+    public static long applyRateToWon(long cents, long numerator, long denominator) {
+        return divideHalfUp(Math.multiplyExact(cents, numerator), Math.multiplyExact(denominator, ONE_WON));
+    }
+
+    /**
+     * BigDecimal의 RoundingMode.HALF_UP과 같은 규칙(0.5는 0에서 멀어지는 쪽)으로 나눈다.
+     */
+    public static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder != 0 && remainder >= Math.abs(divisor) - remainder) {
+            quotient += (dividend ^ divisor) < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    /**
+     * (price - averagePrice) / averagePrice 를 소수 넷째 자리(1/10000)까지 반올림한 값.
+     */
+    public static long returnRatioE4(long priceCents, long averagePriceCents) {
+        if (averagePriceCents == 0) {
+            return 0;
+        }
+        return divideHalfUp(Math.multiplyExact(subtract(priceCents, averagePriceCents), 10_000L), averagePriceCents);
+    }
+
+    /**
+     * returnRatioE4 를 백분율 BigDecimal(소수 넷째 자리)로 변환한다.
+     */
+    public static BigDecimal ratioE4ToPercent(long ratioE4) {
+        return BigDecimal.valueOf(Math.multiplyExact(ratioE4, 100L), 4);
+    }
+}
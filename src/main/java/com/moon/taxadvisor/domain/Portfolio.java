@@ -1,7 +1,9 @@
 package com.moon.taxadvisor.domain;
 
+import com.moon.taxadvisor.repository.TaxLedgerChangeListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
@@ -9,12 +11,12 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+@EntityListeners({UserDataChangeListener.class, TaxLedgerChangeListener.class})
 @Table(name = "portfolio")
 @Getter
 @Setter
@@ -45,16 +47,26 @@ public class Portfolio {
     private Long quantity;
 
     public BigDecimal getUnrealizedGain() {
-        return currentPrice.subtract(averagePrice).multiply(BigDecimal.valueOf(quantity));
+        return unrealizedGainAt(currentPrice);
     }
 
     public BigDecimal getUnrealizedRatePercent() {
+        return unrealizedRatePercentAt(currentPrice);
+    }
+
+    public BigDecimal unrealizedGainAt(BigDecimal price) {
+        long gain = Money.multiply(
+                Money.subtract(Money.fromBigDecimal(price), Money.fromBigDecimal(averagePrice)),
+                quantity
+        );
+        return Money.toBigDecimal(gain);
+    }
+
+    public BigDecimal unrealizedRatePercentAt(BigDecimal price) {
         if (averagePrice == null || averagePrice.signum() == 0) {
             return BigDecimal.ZERO;
         }
-        return currentPrice
-                .subtract(averagePrice)
-                .divide(averagePrice, 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
+        long ratioE4 = Money.returnRatioE4(Money.fromBigDecimal(price), Money.fromBigDecimal(averagePrice));
+        return Money.ratioE4ToPercent(ratioE4);
     }
 }
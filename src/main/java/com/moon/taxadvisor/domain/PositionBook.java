@@ -0,0 +1,81 @@
+package com.moon.taxadvisor.domain;
+
+import java.util.List;
+
+/**
+ * 보유 종목을 평균단가/현재가/수량의 long 배열(열 단위)로 펼친 계산용 구조.
+ * 생성 시 한 번만 BigDecimal을 변환하고, 이후 합계 계산은 객체를 만들지 않는다.
+ */
+public final class PositionBook {
+
+    private final long[] averagePriceCents;
+    private final long[] currentPriceCents;
+    private final long[] quantities;
+
+    public PositionBook(long[] averagePriceCents, long[] currentPriceCents, long[] quantities) {
+        if (averagePriceCents.length != currentPriceCents.length || currentPriceCents.length != quantities.length) {
+            throw new IllegalArgumentException("column lengths differ");
+        }
+        this.averagePriceCents = averagePriceCents;
+        this.currentPriceCents = currentPriceCents;
+        this.quantities = quantities;
+    }
+
+    public static PositionBook of(List<Portfolio> portfolios) {
+        int size = portfolios.size();
+        long[] average = new long[size];
+        long[] current = new long[size];
+        long[] quantity = new long[size];
+        for (int i = 0; i < size; i++) {
+            Portfolio portfolio = portfolios.get(i);
+            average[i] = Money.fromBigDecimal(portfolio.getAveragePrice());
+            current[i] = Money.fromBigDecimal(portfolio.getCurrentPrice());
+            quantity[i] = portfolio.getQuantity();
+        }
+        return new PositionBook(average, current, quantity);
+    }
+
+    public int size() {
+        return quantities.length;
+    }
+
+    public long averagePriceCents(int index) {
+        return averagePriceCents[index];
+    }
+
+    public long currentPriceCents(int index) {
+        return currentPriceCents[index];
+    }
+
+    public long quantity(int index) {
+        return quantities[index];
+    }
+
+    public long unrealizedGainCents(int index) {
+        return Money.multiply(Money.subtract(currentPriceCents[index], averagePriceCents[index]), quantities[index]);
+    }
+
+    /**
+     * 한 번의 순회로 투자원금, 평가금액, 미실현손익, 미실현손실 합계를 구한다.
+     */
+    public Totals totals() {
+        long costBasis = 0;
+        long marketValue = 0;
+        long unrealizedPnL = 0;
+        long unrealizedLoss = 0;
+        for (int i = 0; i < quantities.length; i++) {
+            long gain = unrealizedGainCents(i);
+            costBasis = Money.add(costBasis, Money.multiply(averagePriceCents[i], quantities[i]));
+            marketValue = Money.add(marketValue, Money.multiply(currentPriceCents[i], quantities[i]));
+            unrealizedPnL = Money.add(unrealizedPnL, gain);
+            unrealizedLoss = Money.add(unrealizedLoss, Money.negativePart(gain));
+        }
+        return new Totals(costBasis, marketValue, unrealizedPnL, unrealizedLoss);
+    }
+
+    /**
+     * 금액은 모두 전(1/100원) 단위 long.
+     */
+    public record Totals(long costBasis, long marketValue, long unrealizedPnL, long unrealizedLoss) {
+    }
+}
@@ -1,7 +1,9 @@
 package com.moon.taxadvisor.domain;
 
+import com.moon.taxadvisor.repository.TaxLedgerChangeListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -13,6 +15,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+@EntityListeners({UserDataChangeListener.class, TaxLedgerChangeListener.class})
 @Table(name = "realized_gain")
 @Getter
 @Setter
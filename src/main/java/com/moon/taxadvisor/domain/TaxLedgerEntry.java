@@ -0,0 +1,23 @@
+package com.moon.taxadvisor.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * 사용자별 세금 원장(tax_ledger) 한 행.
+ */
+public record TaxLedgerEntry(
+        String userId,
+        BigDecimal realizedTotal,
+        BigDecimal unrealizedLoss,
+        BigDecimal costBasis,
+        BigDecimal marketValue
+) {
+
+    public static TaxLedgerEntry empty(String userId) {
+        return new TaxLedgerEntry(userId, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    public BigDecimal unrealizedPnL() {
+        return marketValue.subtract(costBasis);
+    }
+}
@@ -0,0 +1,29 @@
+package com.moon.taxadvisor.domain;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Portfolio/RealizedGain 엔티티 변경을 {@link UserDataChangedEvent}로 발행한다.
+ * Hibernate가 SpringBeanContainer를 통해 생성하므로 생성자 주입을 사용할 수 있다.
+ */
+@RequiredArgsConstructor
+public class UserDataChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        switch (entity) {
+            case Portfolio portfolio -> eventPublisher.publishEvent(new UserDataChangedEvent(portfolio.getUserId()));
+            case RealizedGain gain -> eventPublisher.publishEvent(new UserDataChangedEvent(gain.getUserId()));
+            default -> {
+            }
+        }
+    }
+}
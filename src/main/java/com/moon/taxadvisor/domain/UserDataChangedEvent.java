@@ -0,0 +1,7 @@
+package com.moon.taxadvisor.domain;
+
+/**
+ * 사용자의 portfolio 또는 realized_gain 행이 바뀌었음을 알린다.
+ */
+public record UserDataChangedEvent(String userId) {
+}
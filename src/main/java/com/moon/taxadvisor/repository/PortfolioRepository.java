@@ -1,9 +1,33 @@
 package com.moon.taxadvisor.repository;
 
 import com.moon.taxadvisor.domain.Portfolio;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface PortfolioRepository extends JpaRepository<Portfolio, Long> {
     List<Portfolio> findByUserId(String userId);
+
+    /**
+     * 손실 종목의 (현재가 - 평균단가) * 수량 합계. 손실 종목이 없으면 null.
+     */
+    @Query("""
+            select sum((p.currentPrice - p.averagePrice) * p.quantity)
+            from Portfolio p
+            where p.userId = :userId
+              and (p.currentPrice - p.averagePrice) * p.quantity < 0
+            """)
+    BigDecimal sumUnrealizedLossByUserId(@Param("userId") String userId);
+
+    @Query("""
+            select p.userId as userId, sum((p.currentPrice - p.averagePrice) * p.quantity) as amount
+            from Portfolio p
+            where p.userId in :userIds
+              and (p.currentPrice - p.averagePrice) * p.quantity < 0
+            group by p.userId
+            """)
+    List<UserAmount> sumUnrealizedLossGroupedByUserId(@Param("userIds") Collection<String> userIds);
 }
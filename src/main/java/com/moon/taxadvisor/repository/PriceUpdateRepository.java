@@ -0,0 +1,65 @@
+package com.moon.taxadvisor.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSourceUtils;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 시세 반영용 JDBC. 종목 하나당 UPDATE 한 문장으로 그 종목을 보유한 모든 행을 갱신한다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PriceUpdateRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * 종목별로 가장 최근에 저장된 행(id가 가장 큰 행)의 현재가. flush 이후에는 같은 종목의 모든 행이 같은 값을 가진다.
+     */
+    public Map<String, BigDecimal> findLatestPriceByStockName() {
+        Map<String, BigDecimal> prices = new HashMap<>();
+        jdbcTemplate.getJdbcTemplate().query("""
+                        SELECT p.stock_name, p.current_price
+                        FROM portfolio p
+                        JOIN (
+                            SELECT stock_name, MAX(id) AS id
+                            FROM portfolio
+                            GROUP BY stock_name
+                        ) latest ON latest.id = p.id
+                        """,
+                rs -> {
+                    prices.put(rs.getString("stock_name"), rs.getBigDecimal("current_price"));
+                }
+        );
+        return prices;
+    }
+
+    /**
+     * @return 실제로 값이 바뀐 portfolio 행 수
+     */
+    public int updateCurrentPrices(Map<String, BigDecimal> priceByStockName) {
+        List<Map<String, Object>> params = new ArrayList<>(priceByStockName.size());
+        priceByStockName.forEach((stockName, price) -> params.add(Map.of("stockName", stockName, "price", price)));
+
+        int[] counts = jdbcTemplate.batchUpdate("""
+                        UPDATE portfolio
+                        SET current_price = :price
+                        WHERE stock_name = :stockName
+                          AND current_price <> :price
+                        """,
+                SqlParameterSourceUtils.createBatch(params)
+        );
+
+        int total = 0;
+        for (int count : counts) {
+            total += Math.max(count, 0);
+        }
+        return total;
+    }
+}
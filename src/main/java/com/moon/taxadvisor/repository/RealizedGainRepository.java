@@ -1,9 +1,27 @@
 package com.moon.taxadvisor.repository;
 
 import com.moon.taxadvisor.domain.RealizedGain;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface RealizedGainRepository extends JpaRepository<RealizedGain, Long> {
     List<RealizedGain> findByUserId(String userId);
+
+    /**
+     * 확정 손익 합계. 내역이 없으면 null.
+     */
+    @Query("select sum(r.gainAmount) from RealizedGain r where r.userId = :userId")
+    BigDecimal sumGainAmountByUserId(@Param("userId") String userId);
+
+    @Query("""
+            select r.userId as userId, sum(r.gainAmount) as amount
+            from RealizedGain r
+            where r.userId in :userIds
+            group by r.userId
+            """)
+    List<UserAmount> sumGainAmountGroupedByUserId(@Param("userIds") Collection<String> userIds);
 }
@@ -0,0 +1,71 @@
+package com.moon.taxadvisor.repository;
+
+import com.moon.taxadvisor.domain.LedgerDelta;
+import com.moon.taxadvisor.domain.Portfolio;
+import com.moon.taxadvisor.domain.RealizedGain;
+import com.moon.taxadvisor.repository.TaxLedgerRepository.StoredContribution;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PreRemove;
+import jakarta.persistence.PreUpdate;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Portfolio/RealizedGain 쓰기와 같은 트랜잭션 안에서 tax_ledger를 증분 갱신한다.
+ * UPDATE/DELETE는 SQL이 실행되기 직전에 저장된 행을 읽어 이전 기여분을 빼고 새 기여분을 더한다.
+ * 원장 저장소에 의존하므로 domain이 아닌 repository 패키지에 둔다.
+ */
+@RequiredArgsConstructor
+public class TaxLedgerChangeListener {
+
+    private final TaxLedgerRepository taxLedgerRepository;
+
+    @PostPersist
+    public void afterInsert(Object entity) {
+        switch (entity) {
+            case Portfolio portfolio -> taxLedgerRepository.applyDelta(portfolio.getUserId(), contributionOf(portfolio));
+            case RealizedGain gain -> taxLedgerRepository.applyDelta(gain.getUserId(), contributionOf(gain));
+            default -> {
+            }
+        }
+    }
+
+    @PreUpdate
+    public void beforeUpdate(Object entity) {
+        switch (entity) {
+            case Portfolio portfolio -> {
+                revert(taxLedgerRepository.findPortfolioContribution(portfolio.getId()));
+                taxLedgerRepository.applyDelta(portfolio.getUserId(), contributionOf(portfolio));
+            }
+            case RealizedGain gain -> {
+                revert(taxLedgerRepository.findRealizedGainContribution(gain.getId()));
+                taxLedgerRepository.applyDelta(gain.getUserId(), contributionOf(gain));
+            }
+            default -> {
+            }
+        }
+    }
+
+    @PreRemove
+    public void beforeRemove(Object entity) {
+        switch (entity) {
+            case Portfolio portfolio -> revert(taxLedgerRepository.findPortfolioContribution(portfolio.getId()));
+            case RealizedGain gain -> revert(taxLedgerRepository.findRealizedGainContribution(gain.getId()));
+            default -> {
+            }
+        }
+    }
+
+    private void revert(Optional<StoredContribution> stored) {
+        stored.ifPresent(contribution ->
+                taxLedgerRepository.applyDelta(contribution.userId(), contribution.delta().negate()));
+    }
+
+    private LedgerDelta contributionOf(Portfolio portfolio) {
+        return LedgerDelta.ofPosition(portfolio.getAveragePrice(), portfolio.getCurrentPrice(), portfolio.getQuantity());
+    }
+
+    private LedgerDelta contributionOf(RealizedGain gain) {
+        return LedgerDelta.ofRealizedGain(gain.getGainAmount());
+    }
+}
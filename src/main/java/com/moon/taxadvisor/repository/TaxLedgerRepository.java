@@ -0,0 +1,261 @@
+package com.moon.taxadvisor.repository;
+
+import com.moon.taxadvisor.domain.LedgerDelta;
+import com.moon.taxadvisor.domain.TaxLedgerEntry;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * tax_ledger 테이블 접근. 엔티티 리스너에서도 호출되므로 EntityManager에 의존하지 않고 JDBC만 사용한다.
+ * 호출한 쪽의 트랜잭션(같은 커넥션)에 참여한다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TaxLedgerRepository {
+
+    private static final String ALL_USERS = "";
+    private static final String SELECTED_USERS = "WHERE user_id IN (:userIds)";
+
+    /**
+     * 원본 테이블에서 계산한 원장 값. %s 자리에 사용자 필터가 들어간다.
+     */
+    private static final String COMPUTED_LEDGER_SQL = """
+            SELECT u.user_id,
+                   COALESCE(r.realized_total, 0) AS realized_total,
+                   COALESCE(p.unrealized_loss, 0) AS unrealized_loss,
+                   COALESCE(p.cost_basis, 0) AS cost_basis,
+                   COALESCE(p.market_value, 0) AS market_value
+            FROM (
+                SELECT user_id FROM portfolio %1$s
+                UNION
+                SELECT user_id FROM realized_gain %1$s
+            ) u
+            LEFT JOIN (
+                SELECT user_id, SUM(gain_amount) AS realized_total
+                FROM realized_gain %1$s
+                GROUP BY user_id
+            ) r ON r.user_id = u.user_id
+            LEFT JOIN (
+                SELECT user_id,
+                       SUM(CASE WHEN (current_price - average_price) * quantity < 0
+                                THEN (current_price - average_price) * quantity ELSE 0 END) AS unrealized_loss,
+                       SUM(average_price * quantity) AS cost_basis,
+                       SUM(current_price * quantity) AS market_value
+                FROM portfolio %1$s
+                GROUP BY user_id
+            ) p ON p.user_id = u.user_id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Optional<TaxLedgerEntry> findByUserId(String userId) {
+        return jdbcTemplate.query("""
+                        SELECT user_id, realized_total, unrealized_loss, cost_basis, market_value
+                        FROM tax_ledger
+                        WHERE user_id = :userId
+                        """,
+                Map.of("userId", userId),
+                TaxLedgerRepository::mapEntry
+        ).stream().findFirst();
+    }
+
+    public List<TaxLedgerEntry> findByUserIds(Collection<String> userIds) {
+        return jdbcTemplate.query("""
+                        SELECT user_id, realized_total, unrealized_loss, cost_basis, market_value
+                        FROM tax_ledger
+                        WHERE user_id IN (:userIds)
+                        """,
+                Map.of("userIds", userIds),
+                TaxLedgerRepository::mapEntry
+        );
+    }
+
+    /**
+     * 원장을 거치지 않고 원본 테이블에서 직접 계산한다. 데이터가 없으면 빈 Optional.
+     */
+    public Optional<TaxLedgerEntry> computeFromSource(String userId) {
+        return jdbcTemplate.query(
+                COMPUTED_LEDGER_SQL.formatted(SELECTED_USERS),
+                Map.of("userIds", List.of(userId)),
+                TaxLedgerRepository::mapEntry
+        ).stream().findFirst();
+    }
+
+    /**
+     * 원장 행에 변화량을 더한다. 행이 없으면 변화량 자체로 새 행을 만든다.
+     * 같은 사용자의 첫 쓰기가 동시에 들어와도 기본 키 충돌이 나지 않도록 한 문장(INSERT ... ON DUPLICATE KEY UPDATE)으로 처리한다.
+     */
+    public void applyDelta(String userId, LedgerDelta delta) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("realizedTotal", delta.realizedTotal())
+                .addValue("unrealizedLoss", delta.unrealizedLoss())
+                .addValue("costBasis", delta.costBasis())
+                .addValue("marketValue", delta.marketValue());
+
+        jdbcTemplate.update("""
+                INSERT INTO tax_ledger (user_id, realized_total, unrealized_loss, cost_basis, market_value, updated_at)
+                VALUES (:userId, :realizedTotal, :unrealizedLoss, :costBasis, :marketValue, CURRENT_TIMESTAMP)
+                ON DUPLICATE KEY UPDATE
+                    realized_total = realized_total + VALUES(realized_total),
+                    unrealized_loss = unrealized_loss + VALUES(unrealized_loss),
+                    cost_basis = cost_basis + VALUES(cost_basis),
+                    market_value = market_value + VALUES(market_value),
+                    updated_at = CURRENT_TIMESTAMP
+                """, params);
+    }
+
+    /**
+     * 시세 변경분을 원장에 반영한다. portfolio.current_price를 바꾸기 전에 호출해야 한다.
+     * 보유 행의 이전 가격과 새 가격 차이로 사용자별 market_value/unrealized_loss 변화량을 구해
+     * MERGE 한 문장으로 더하므로, 보유자 목록을 따로 읽거나 전체 이력을 다시 집계하지 않는다.
+     * 원장 행이 없는 사용자는 건너뛰며 주기 대조(verify)에서 채워진다.
+     *
+     * @return 갱신된 원장 행 수
+     */
+    public int applyPriceMoves(Map<String, BigDecimal> priceByStockName) {
+        if (priceByStockName.isEmpty()) {
+            return 0;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringJoiner prices = new StringJoiner("\n                    UNION ALL\n                    ");
+        int index = 0;
+        for (Map.Entry<String, BigDecimal> entry : priceByStockName.entrySet()) {
+            // 타입을 알 수 없는 파라미터끼리의 UNION이 되지 않도록 컬럼 타입으로 고정한다.
+            prices.add("SELECT CAST(:stockName%1$d AS VARCHAR(100)) AS stock_name, CAST(:price%1$d AS DECIMAL(19, 2)) AS price"
+                    .formatted(index));
+            params.addValue("stockName" + index, entry.getKey());
+            params.addValue("price" + index, entry.getValue());
+            index++;
+        }
+
+        return jdbcTemplate.update("""
+                MERGE INTO tax_ledger l
+                USING (
+                    SELECT p.user_id,
+                           SUM((n.price - p.current_price) * p.quantity) AS market_value_delta,
+                           SUM(CASE WHEN (n.price - p.average_price) * p.quantity < 0
+                                    THEN (n.price - p.average_price) * p.quantity ELSE 0 END
+                             - CASE WHEN (p.current_price - p.average_price) * p.quantity < 0
+                                    THEN (p.current_price - p.average_price) * p.quantity ELSE 0 END) AS unrealized_loss_delta
+                    FROM portfolio p
+                    JOIN (
+                    %s
+                    ) n ON n.stock_name = p.stock_name
+                    WHERE p.current_price <> n.price
+                    GROUP BY p.user_id
+                ) d ON l.user_id = d.user_id
+                WHEN MATCHED THEN UPDATE SET
+                    market_value = l.market_value + d.market_value_delta,
+                    unrealized_loss = l.unrealized_loss + d.unrealized_loss_delta,
+                    updated_at = CURRENT_TIMESTAMP
+                """.formatted(prices), params);
+    }
+
+    /**
+     * 지정한 사용자들의 원장 행을 원본 테이블 기준으로 다시 만든다.
+     */
+    public int recompute(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        Map<String, Object> params = Map.of("userIds", userIds);
+        jdbcTemplate.update("DELETE FROM tax_ledger WHERE user_id IN (:userIds)", params);
+        return jdbcTemplate.update(insertComputedSql(SELECTED_USERS), params);
+    }
+
+    public int rebuildAll() {
+        jdbcTemplate.getJdbcTemplate().update("DELETE FROM tax_ledger");
+        return jdbcTemplate.getJdbcTemplate().update(insertComputedSql(ALL_USERS));
+    }
+
+    /**
+     * 원본 테이블에서 계산한 값과 원장 값이 다른 사용자 목록.
+     * 원본 데이터가 모두 사라졌는데 0이 아닌 값이 남은 원장 행도 포함한다.
+     */
+    public List<String> findMismatchedUserIds() {
+        return jdbcTemplate.getJdbcTemplate().queryForList("""
+                SELECT c.user_id
+                FROM (%s) c
+                LEFT JOIN tax_ledger l ON l.user_id = c.user_id
+                WHERE l.user_id IS NULL
+                   OR l.realized_total <> c.realized_total
+                   OR l.unrealized_loss <> c.unrealized_loss
+                   OR l.cost_basis <> c.cost_basis
+                   OR l.market_value <> c.market_value
+                UNION
+                SELECT l.user_id
+                FROM tax_ledger l
+                WHERE NOT EXISTS (SELECT 1 FROM portfolio p WHERE p.user_id = l.user_id)
+                  AND NOT EXISTS (SELECT 1 FROM realized_gain r WHERE r.user_id = l.user_id)
+                  AND (l.realized_total <> 0 OR l.unrealized_loss <> 0 OR l.cost_basis <> 0 OR l.market_value <> 0)
+                """.formatted(COMPUTED_LEDGER_SQL.formatted(ALL_USERS)), String.class);
+    }
+
+    /**
+     * 아직 갱신되지 않은 portfolio 행의 원장 기여분. 엔티티 리스너가 UPDATE/DELETE 직전에 호출한다.
+     */
+    public Optional<StoredContribution> findPortfolioContribution(long portfolioId) {
+        return jdbcTemplate.query("""
+                        SELECT user_id, average_price, current_price, quantity
+                        FROM portfolio
+                        WHERE id = :id
+                        """,
+                Map.of("id", portfolioId),
+                (rs, rowNum) -> new StoredContribution(
+                        rs.getString("user_id"),
+                        LedgerDelta.ofPosition(
+                                rs.getBigDecimal("average_price"),
+                                rs.getBigDecimal("current_price"),
+                                rs.getLong("quantity")
+                        )
+                )
+        ).stream().findFirst();
+    }
+
+    public Optional<StoredContribution> findRealizedGainContribution(long realizedGainId) {
+        return jdbcTemplate.query("""
+                        SELECT user_id, gain_amount
+                        FROM realized_gain
+                        WHERE id = :id
+                        """,
+                Map.of("id", realizedGainId),
+                (rs, rowNum) -> new StoredContribution(
+                        rs.getString("user_id"),
+                        LedgerDelta.ofRealizedGain(rs.getBigDecimal("gain_amount"))
+                )
+        ).stream().findFirst();
+    }
+
+    private String insertComputedSql(String userFilter) {
+        return """
+                INSERT INTO tax_ledger (user_id, realized_total, unrealized_loss, cost_basis, market_value, updated_at)
+                SELECT c.user_id, c.realized_total, c.unrealized_loss, c.cost_basis, c.market_value, CURRENT_TIMESTAMP
+                FROM (%s) c
+                """.formatted(COMPUTED_LEDGER_SQL.formatted(userFilter));
+    }
+
+    private static TaxLedgerEntry mapEntry(ResultSet rs, int rowNum) throws SQLException {
+        return new TaxLedgerEntry(
+                rs.getString("user_id"),
+                rs.getBigDecimal("realized_total"),
+                rs.getBigDecimal("unrealized_loss"),
+                rs.getBigDecimal("cost_basis"),
+                rs.getBigDecimal("market_value")
+        );
+    }
+
+    public record StoredContribution(String userId, LedgerDelta delta) {
+    }
+}
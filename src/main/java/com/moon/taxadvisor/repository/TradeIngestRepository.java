@@ -0,0 +1,85 @@
+package com.moon.taxadvisor.repository;
+
+import com.moon.taxadvisor.domain.Market;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 대량 적재용 JDBC 배치 INSERT.
+ * IDENTITY 키를 쓰는 엔티티는 Hibernate가 INSERT를 묶지 못하므로 JPA를 거치지 않고 생성 키도 돌려받지 않는다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TradeIngestRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertPortfolios(List<PortfolioRow> rows) {
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO portfolio (user_id, market, stock_name, average_price, current_price, quantity)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        """,
+                rows,
+                rows.size(),
+                (ps, row) -> {
+                    ps.setString(1, row.userId());
+                    ps.setString(2, row.market().name());
+                    ps.setString(3, row.stockName());
+                    ps.setBigDecimal(4, row.averagePrice());
+                    ps.setBigDecimal(5, row.currentPrice());
+                    ps.setLong(6, row.quantity());
+                });
+    }
+
+    public void insertRealizedGains(List<RealizedGainRow> rows) {
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO realized_gain (user_id, stock_name, gain_amount, realized_date)
+                        VALUES (?, ?, ?, ?)
+                        """,
+                rows,
+                rows.size(),
+                (ps, row) -> {
+                    ps.setString(1, row.userId());
+                    ps.setString(2, row.stockName());
+                    ps.setBigDecimal(3, row.gainAmount());
+                    ps.setDate(4, Date.valueOf(row.realizedDate()));
+                });
+    }
+
+    public record PortfolioRow(
+            String userId,
+            Market market,
+            String stockName,
+            BigDecimal averagePrice,
+            BigDecimal currentPrice,
+            long quantity
+    ) {
+        public PortfolioRow {
+            Objects.requireNonNull(userId, "userId");
+            Objects.requireNonNull(market, "market");
+            Objects.requireNonNull(stockName, "stockName");
+            Objects.requireNonNull(averagePrice, "averagePrice");
+            Objects.requireNonNull(currentPrice, "currentPrice");
+        }
+    }
+
+    public record RealizedGainRow(
+            String userId,
+            String stockName,
+            BigDecimal gainAmount,
+            LocalDate realizedDate
+    ) {
+        public RealizedGainRow {
+            Objects.requireNonNull(userId, "userId");
+            Objects.requireNonNull(stockName, "stockName");
+            Objects.requireNonNull(gainAmount, "gainAmount");
+            Objects.requireNonNull(realizedDate, "realizedDate");
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.moon.taxadvisor.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * 사용자별 합계 집계 결과 프로젝션.
+ */
+public interface UserAmount {
+    String getUserId();
+
+    BigDecimal getAmount();
+}
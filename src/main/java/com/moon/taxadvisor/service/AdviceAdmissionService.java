@@ -0,0 +1,304 @@
+package com.moon.taxadvisor.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.moon.taxadvisor.config.AdmissionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * 절세 분석 파이프라인 입구의 수락 제어.
+ * - 호출자(X-User-Id)별 토큰 버킷으로 초당 요청 수를 제한한다.
+ * - 동시에 실행하는 파이프라인은 admission.max-concurrent 개로 제한하고, 나머지는 사용자별 대기열에 넣는다.
+ * - 자리가 나면 대기 중인 사용자를 돌아가며(round-robin) 한 건씩 꺼내므로, 한 사용자가 대기열을 채워도 다른 사용자가 밀리지 않는다.
+ * - 대기열이 가득 찼거나 admission.max-queue-wait-ms 안에 자리가 나지 않으면 AdmissionRejectedException(429)으로 바로 끝낸다.
+ * - 스트리밍 엔드포인트(admitMany)도 같은 자리와 대기열을 쓴다.
+ */
+@Service
+@Slf4j
+public class AdviceAdmissionService {
+
+    private final AdmissionProperties admissionProperties;
+    private final MeterRegistry meterRegistry;
+    private final Scheduler blockingScheduler;
+    private final Cache<String, TokenBucket> buckets = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .maximumSize(100_000)
+            .build();
+    private final Map<String, Deque<Waiter>> waitingByUser = new HashMap<>();
+    private final Deque<String> usersInTurn = new ArrayDeque<>();
+    private final Timer waitTimer;
+    private int running;
+    private int queued;
+    private volatile long serviceTimeEstimateMs = 5_000;
+
+    public AdviceAdmissionService(
+            AdmissionProperties admissionProperties,
+            MeterRegistry meterRegistry,
+            Scheduler blockingScheduler
+    ) {
+        this.admissionProperties = admissionProperties;
+        this.meterRegistry = meterRegistry;
+        this.blockingScheduler = blockingScheduler;
+        this.waitTimer = Timer.builder("advice.admission.wait")
+                .description("Time an admitted advice request waited in the fair queue")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("advice.admission.queue.depth", this, AdviceAdmissionService::queuedCount)
+                .description("Advice requests waiting for a pipeline slot")
+                .register(meterRegistry);
+        Gauge.builder("advice.admission.running", this, AdviceAdmissionService::runningCount)
+                .description("Advice pipelines currently running")
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> admit(String userId, Supplier<Mono<T>> pipeline) {
+        return admitMany(userId, () -> pipeline.get().flux()).singleOrEmpty();
+    }
+
+    /**
+     * 스트리밍 응답용. 실행 자리는 스트림이 끝나거나(오류·취소 포함) 할 때까지 잡고 있는다.
+     */
+    public <T> Flux<T> admitMany(String userId, Supplier<Flux<T>> pipeline) {
+        if (!admissionProperties.isEnabled()) {
+            return Flux.defer(pipeline);
+        }
+        return Flux.defer(() -> {
+            long rateLimitedNanos = buckets.get(userId, ignored -> new TokenBucket(
+                            admissionProperties.getUserRatePerSecond(),
+                            admissionProperties.getUserBurst()))
+                    .tryTake();
+            if (rateLimitedNanos > 0) {
+                return Flux.error(reject(userId, "rate-limited", toRetryAfterSeconds(rateLimitedNanos)));
+            }
+
+            Waiter waiter = new Waiter(userId, System.nanoTime());
+            String rejectedReason = enqueue(waiter);
+            if (rejectedReason != null) {
+                return Flux.error(reject(userId, rejectedReason, estimateRetryAfterSeconds()));
+            }
+
+            if (waiter.state == WaiterState.GRANTED) {
+                return Flux.defer(pipeline).doFinally(signal -> finish(waiter));
+            }
+            // 대기열에서 꺼내는 스레드는 앞선 요청의 스레드이므로, 파이프라인은 blocking 스케줄러에서 이어서 실행한다.
+            // 실행 권한과 대기 시간 초과가 겹쳐도 finish가 waiter 상태를 보고 자리를 돌려주므로 자리가 새지 않는다.
+            return waiter.granted.asMono()
+                    .timeout(
+                            Duration.ofMillis(admissionProperties.getMaxQueueWaitMs()),
+                            Mono.error(() -> reject(userId, "queue-timeout", estimateRetryAfterSeconds()))
+                    )
+                    .publishOn(blockingScheduler)
+                    .thenMany(Flux.defer(pipeline))
+                    .doFinally(signal -> finish(waiter));
+        });
+    }
+
+    public synchronized int queuedCount() {
+        return queued;
+    }
+
+    public synchronized int runningCount() {
+        return running;
+    }
+
+    /**
+     * 지금 대기열에서 가장 오래 기다린 요청의 대기 시간. 대기열이 비어 있으면 0.
+     */
+    public synchronized long oldestWaitMs() {
+        long now = System.nanoTime();
+        long oldest = 0;
+        for (Deque<Waiter> userQueue : waitingByUser.values()) {
+            Waiter head = userQueue.peekFirst();
+            if (head != null) {
+                oldest = Math.max(oldest, now - head.enqueuedAtNanos);
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(oldest);
+    }
+
+    public int maxConcurrent() {
+        return admissionProperties.getMaxConcurrent();
+    }
+
+    /**
+     * 자리가 있고 대기 중인 요청이 없으면 바로 실행 권한을 주고, 아니면 사용자별 대기열에 넣는다. 거절하면 사유를 돌려준다.
+     */
+    private synchronized String enqueue(Waiter waiter) {
+        if (running < admissionProperties.getMaxConcurrent() && queued == 0) {
+            grant(waiter);
+            return null;
+        }
+        if (queued >= admissionProperties.getMaxQueueSize()) {
+            return "queue-full";
+        }
+        Deque<Waiter> userQueue = waitingByUser.computeIfAbsent(waiter.userId, ignored -> new ArrayDeque<>());
+        if (userQueue.size() >= admissionProperties.getMaxQueuedPerUser()) {
+            return "user-queue-full";
+        }
+        if (userQueue.isEmpty()) {
+            usersInTurn.addLast(waiter.userId);
+        }
+        userQueue.addLast(waiter);
+        queued++;
+        return null;
+    }
+
+    private void finish(Waiter waiter) {
+        List<Waiter> dispatched = release(waiter);
+        dispatched.forEach(next -> next.granted.tryEmitEmpty());
+    }
+
+    /**
+     * 끝난 요청의 자리를 돌려주고 대기 중인 요청에 넘긴다. 실행 권한 신호는 락 밖에서 보낸다.
+     */
+    private synchronized List<Waiter> release(Waiter waiter) {
+        if (waiter.state == WaiterState.WAITING) {
+            waiter.state = WaiterState.DONE;
+            Deque<Waiter> userQueue = waitingByUser.get(waiter.userId);
+            if (userQueue != null && userQueue.remove(waiter)) {
+                queued--;
+                if (userQueue.isEmpty()) {
+                    waitingByUser.remove(waiter.userId);
+                    usersInTurn.remove(waiter.userId);
+                }
+            }
+            return List.of();
+        }
+        if (waiter.state == WaiterState.GRANTED) {
+            waiter.state = WaiterState.DONE;
+            running--;
+            long serviceMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waiter.grantedAtNanos);
+            serviceTimeEstimateMs = (serviceTimeEstimateMs * 4 + serviceMs) / 5;
+            return dispatchNext();
+        }
+        return List.of();
+    }
+
+    private List<Waiter> dispatchNext() {
+        List<Waiter> dispatched = new ArrayList<>();
+        while (running < admissionProperties.getMaxConcurrent() && !usersInTurn.isEmpty()) {
+            String userId = usersInTurn.pollFirst();
+            Deque<Waiter> userQueue = waitingByUser.get(userId);
+            Waiter next = userQueue.pollFirst();
+            queued--;
+            if (userQueue.isEmpty()) {
+                waitingByUser.remove(userId);
+            } else {
+                usersInTurn.addLast(userId);
+            }
+            grant(next);
+            dispatched.add(next);
+        }
+        return dispatched;
+    }
+
+    private void grant(Waiter waiter) {
+        waiter.state = WaiterState.GRANTED;
+        waiter.grantedAtNanos = System.nanoTime();
+        running++;
+        waitTimer.record(waiter.grantedAtNanos - waiter.enqueuedAtNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private AdmissionRejectedException reject(String userId, String reason, long retryAfterSeconds) {
+        Counter.builder("advice.admission.rejected")
+                .description("Advice requests shed before running the pipeline")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.warn("절세 분석 요청을 거절합니다. userId={}, reason={}, retryAfterSeconds={}", userId, reason, retryAfterSeconds);
+        return new AdmissionRejectedException(reason, retryAfterSeconds);
+    }
+
+    private long estimateRetryAfterSeconds() {
+        long waitMs = (queuedCount() + 1) * serviceTimeEstimateMs / Math.max(1, admissionProperties.getMaxConcurrent());
+        return Math.max(1, (waitMs + 999) / 1000);
+    }
+
+    private static long toRetryAfterSeconds(long nanos) {
+        return Math.max(1, (nanos + 999_999_999) / 1_000_000_000);
+    }
+
+    private enum WaiterState {
+        WAITING,
+        GRANTED,
+        DONE
+    }
+
+    private static final class Waiter {
+        private final String userId;
+        private final long enqueuedAtNanos;
+        private final Sinks.Empty<Void> granted = Sinks.empty();
+        private volatile WaiterState state = WaiterState.WAITING;
+        private long grantedAtNanos;
+
+        private Waiter(String userId, long enqueuedAtNanos) {
+            this.userId = userId;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+    }
+
+    /**
+     * 초당 ratePerSecond 개씩 최대 burst 개까지 채워지는 토큰 버킷.
+     */
+    private static final class TokenBucket {
+        private final double ratePerNano;
+        private final double capacity;
+        private double tokens;
+        private long refilledAtNanos = System.nanoTime();
+
+        private TokenBucket(double ratePerSecond, int burst) {
+            this.ratePerNano = ratePerSecond / 1_000_000_000d;
+            this.capacity = burst;
+            this.tokens = burst;
+        }
+
+        /**
+         * 토큰을 하나 쓰면 0, 없으면 다음 토큰까지 남은 나노초.
+         */
+        private synchronized long tryTake() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAtNanos) * ratePerNano);
+            refilledAtNanos = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / ratePerNano);
+        }
+    }
+
+    /**
+     * 파이프라인을 실행하지 않고 거절했을 때. retryAfterSeconds는 Retry-After 헤더 값이다.
+     */
+    @Getter
+    public static class AdmissionRejectedException extends RuntimeException {
+
+        private final String reason;
+        private final long retryAfterSeconds;
+
+        public AdmissionRejectedException(String reason, long retryAfterSeconds) {
+            super("Advice request rejected: " + reason);
+            this.reason = reason;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+}
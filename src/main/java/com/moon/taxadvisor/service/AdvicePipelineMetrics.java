@@ -0,0 +1,105 @@
+package com.moon.taxadvisor.service;
+
+import com.moon.taxadvisor.domain.DegradationTier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 절세 분석 파이프라인(Agent 1 → 2 → 3)의 단계별 소요 시간, Agent별 대체 응답 비율, 요청/응답 크기를 기록한다.
+ * - advice.pipeline.stage{stage=strategy|audit|image|total, tier}
+ * - advice.agent.results{agent=strategy|audit|image, result=live|fallback|degraded}
+ * - advice.request.bytes, advice.response.bytes{part=strategy|audit|image}
+ * - advice.pipeline.inflight: 지금 실행 중인 파이프라인 수(스트리밍 포함). DegradationManager가 부하 압력에 쓴다.
+ */
+@Component
+public class AdvicePipelineMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public AdvicePipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("advice.pipeline.inflight", inFlight, AtomicInteger::get)
+                .description("Advice pipelines currently running, including streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 구독부터 완료·오류·취소까지 실행 중인 파이프라인으로 센다.
+     */
+    public <T> Mono<T> track(Mono<T> pipeline) {
+        return Mono.defer(() -> {
+            inFlight.incrementAndGet();
+            return pipeline.doFinally(signal -> inFlight.decrementAndGet());
+        });
+    }
+
+    public <T> Flux<T> track(Flux<T> pipeline) {
+        return Flux.defer(() -> {
+            inFlight.incrementAndGet();
+            return pipeline.doFinally(signal -> inFlight.decrementAndGet());
+        });
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * 단계 소요 시간을 기록하고, 로그에 남길 수 있도록 밀리초 값을 돌려준다.
+     */
+    public long recordStage(Timer.Sample sample, String stage, DegradationTier tier) {
+        long elapsedNanos = sample.stop(Timer.builder("advice.pipeline.stage")
+                .description("Advice pipeline stage latency")
+                .tag("stage", stage)
+                .tag("tier", tier.name().toLowerCase())
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * fallback은 호출했지만 대체 응답으로 끝난 경우, degraded는 부하 단계 때문에 호출 자체를 건너뛴 경우다.
+     */
+    public void recordAgentResult(String agent, boolean attempted, boolean fallbackUsed) {
+        String result = !attempted ? "degraded" : fallbackUsed ? "fallback" : "live";
+        Counter.builder("advice.agent.results")
+                .description("Agent outcomes; fallback rate = fallback / total")
+                .tag("agent", agent)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordPayload(String question, String primaryStrategy, String auditReview, String base64Image) {
+        payloadSummary("advice.request.bytes", "question").record(utf8Length(question));
+        payloadSummary("advice.response.bytes", "strategy").record(utf8Length(primaryStrategy));
+        payloadSummary("advice.response.bytes", "audit").record(utf8Length(auditReview));
+        // base64는 ASCII라 문자 수가 곧 바이트 수다. 수 MB 문자열을 다시 인코딩하지 않는다.
+        payloadSummary("advice.response.bytes", "image").record(base64Image == null ? 0 : base64Image.length());
+    }
+
+    private DistributionSummary payloadSummary(String name, String part) {
+        return DistributionSummary.builder(name)
+                .baseUnit("bytes")
+                .tag("part", part)
+                .register(meterRegistry);
+    }
+
+    private static int utf8Length(String value) {
+        return value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
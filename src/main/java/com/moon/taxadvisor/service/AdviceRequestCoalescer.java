@@ -0,0 +1,88 @@
+package com.moon.taxadvisor.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * (userId, 정규화된 질문, 데이터 버전)이 같은 동시 요청을 하나의 파이프라인 실행으로 합친다.
+ * 실행이 끝나면(성공/오류/취소) 항목을 지워 다음 요청은 새로 실행한다.
+ * 기다리는 호출자가 모두 취소하면 공유 실행도 취소된다.
+ */
+@Service
+@Slf4j
+public class AdviceRequestCoalescer {
+
+    private final Map<CoalescingKey, Mono<?>> inFlight = new ConcurrentHashMap<>();
+    private final UserDataVersionTracker userDataVersionTracker;
+    private final Counter leaderCounter;
+    private final Counter joinedCounter;
+
+    public AdviceRequestCoalescer(UserDataVersionTracker userDataVersionTracker, MeterRegistry meterRegistry) {
+        this.userDataVersionTracker = userDataVersionTracker;
+        this.leaderCounter = Counter.builder("advice.coalescing.requests")
+                .tag("role", "leader")
+                .register(meterRegistry);
+        this.joinedCounter = Counter.builder("advice.coalescing.requests")
+                .tag("role", "joined")
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> coalesce(String userId, String question, Supplier<Mono<T>> pipeline) {
+        return Mono.defer(() -> {
+            CoalescingKey key = new CoalescingKey(
+                    userId,
+                    normalizeQuestion(question),
+                    userDataVersionTracker.currentVersion(userId)
+            );
+            AtomicBoolean created = new AtomicBoolean(false);
+            Mono<T> shared = (Mono<T>) inFlight.computeIfAbsent(key, ignored -> {
+                created.set(true);
+                return share(key, pipeline);
+            });
+
+            if (created.get()) {
+                leaderCounter.increment();
+            } else {
+                joinedCounter.increment();
+                log.info("진행 중인 동일 요청에 합류합니다. userId={}, inFlight={}", userId, inFlight.size());
+            }
+            return shared;
+        });
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private <T> Mono<T> share(CoalescingKey key, Supplier<Mono<T>> pipeline) {
+        AtomicReference<Mono<T>> self = new AtomicReference<>();
+        Mono<T> shared = Mono.defer(pipeline)
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .flux()
+                .publish()
+                .refCount(1)
+                .singleOrEmpty();
+        self.set(shared);
+        return shared;
+    }
+
+    private String normalizeQuestion(String question) {
+        if (question == null) {
+            return "";
+        }
+        return question.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private record CoalescingKey(String userId, String normalizedQuestion, long dataVersion) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.moon.taxadvisor.service;
+
+import com.moon.taxadvisor.client.resilience.UpstreamGuard;
+import com.moon.taxadvisor.config.DegradationProperties;
+import com.moon.taxadvisor.domain.DegradationTier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * 부하 지표로 파이프라인 단계(DegradationTier)를 정한다.
+ * 압력 = max(실행 중인 파이프라인(스트리밍 포함)+대기 요청 / 동시 실행 한도, 최장 대기 시간 / 목표 대기 시간, Gemini 호출 지연 / 목표 지연)
+ * 압력이 단계 기준을 넘으면 바로 올리고, 기준보다 recoveryMargin 이상 내려가야 한 단계씩 내린다.
+ * Gemini 차단기가 호출을 거절하는 동안은 LOCAL_ONLY, Nano Banana 차단기가 거절하는 동안은 최소 NO_IMAGE 로 둔다.
+ */
+@Service
+@Slf4j
+public class DegradationManager {
+
+    private final DegradationProperties degradationProperties;
+    private final AdviceAdmissionService adviceAdmissionService;
+    private final AdvicePipelineMetrics advicePipelineMetrics;
+    private final UpstreamGuard geminiUpstreamGuard;
+    private final UpstreamGuard nanoBananaUpstreamGuard;
+    private final MeterRegistry meterRegistry;
+    private volatile DegradationTier tier = DegradationTier.FULL;
+    private volatile double pressure;
+
+    public DegradationManager(
+            DegradationProperties degradationProperties,
+            AdviceAdmissionService adviceAdmissionService,
+            AdvicePipelineMetrics advicePipelineMetrics,
+            @Qualifier("geminiUpstreamGuard") UpstreamGuard geminiUpstreamGuard,
+            @Qualifier("nanoBananaUpstreamGuard") UpstreamGuard nanoBananaUpstreamGuard,
+            MeterRegistry meterRegistry
+    ) {
+        this.degradationProperties = degradationProperties;
+        this.adviceAdmissionService = adviceAdmissionService;
+        this.advicePipelineMetrics = advicePipelineMetrics;
+        this.geminiUpstreamGuard = geminiUpstreamGuard;
+        this.nanoBananaUpstreamGuard = nanoBananaUpstreamGuard;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("advice.degradation.tier", this, manager -> manager.currentTier().ordinal())
+                .description("0=full, 1=no-image, 2=fallback-audit, 3=local-only")
+                .register(meterRegistry);
+        Gauge.builder("advice.degradation.pressure", this, manager -> manager.pressure)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 요청 시작 시 한 번 읽어 그 요청 전체에 같은 단계를 적용한다.
+     */
+    public DegradationTier currentTier() {
+        DegradationTier forced = degradationProperties.getForcedTier();
+        if (forced != null) {
+            return forced;
+        }
+        return degradationProperties.isEnabled() ? tier : DegradationTier.FULL;
+    }
+
+    public void recordRequest(DegradationTier requestTier) {
+        Counter.builder("advice.degradation.requests")
+                .tag("tier", requestTier.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Scheduled(fixedDelayString = "${degradation.evaluate-interval-ms:1000}")
+    public void evaluate() {
+        if (!degradationProperties.isEnabled()) {
+            return;
+        }
+        // 실행 수는 수락 제어가 꺼져 있어도 셀 수 있도록 파이프라인 쪽에서 센다.
+        double utilization = (double) (advicePipelineMetrics.inFlight() + adviceAdmissionService.queuedCount())
+                / Math.max(1, adviceAdmissionService.maxConcurrent());
+        double queueWait = (double) adviceAdmissionService.oldestWaitMs() / degradationProperties.getTargetQueueWaitMs();
+        // LOCAL_ONLY 동안에는 Gemini를 부르지 않아 지연 추정치가 갱신되지 않으므로, 그 값으로 단계를 붙잡아 두지 않는다.
+        double upstreamLatency = tier == DegradationTier.LOCAL_ONLY
+                ? 0
+                : (double) geminiUpstreamGuard.latencyEstimateMs() / degradationProperties.getTargetUpstreamLatencyMs();
+        pressure = Math.max(utilization, Math.max(queueWait, upstreamLatency));
+
+        DegradationTier next = nextTier(tier, pressure);
+        if (geminiUpstreamGuard.isRejectingCalls()) {
+            next = DegradationTier.LOCAL_ONLY;
+        } else if (nanoBananaUpstreamGuard.isRejectingCalls() && next == DegradationTier.FULL) {
+            next = DegradationTier.NO_IMAGE;
+        }
+
+        if (next != tier) {
+            log.warn(
+                    "파이프라인 단계 전환: {} -> {}, pressure={}, utilization={}, queueWait={}, upstreamLatency={}",
+                    tier,
+                    next,
+                    String.format("%.2f", pressure),
+                    String.format("%.2f", utilization),
+                    String.format("%.2f", queueWait),
+                    String.format("%.2f", upstreamLatency)
+            );
+            Counter.builder("advice.degradation.transitions")
+                    .tag("to", next.name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+            tier = next;
+        }
+    }
+
+    private DegradationTier nextTier(DegradationTier current, double pressure) {
+        DegradationTier target = tierFor(pressure);
+        if (target.ordinal() >= current.ordinal()) {
+            return target;
+        }
+        // 내려갈 때는 현재 단계 기준보다 recoveryMargin 이상 낮아야 한 단계만 내린다.
+        if (pressure < threshold(current) - degradationProperties.getRecoveryMargin()) {
+            return DegradationTier.values()[current.ordinal() - 1];
+        }
+        return current;
+    }
+
+    private DegradationTier tierFor(double pressure) {
+        if (pressure >= degradationProperties.getLocalOnlyPressure()) {
+            return DegradationTier.LOCAL_ONLY;
+        }
+        if (pressure >= degradationProperties.getFallbackAuditPressure()) {
+            return DegradationTier.FALLBACK_AUDIT;
+        }
+        if (pressure >= degradationProperties.getNoImagePressure()) {
+            return DegradationTier.NO_IMAGE;
+        }
+        return DegradationTier.FULL;
+    }
+
+    private double threshold(DegradationTier tier) {
+        return switch (tier) {
+            case FULL -> 0;
+            case NO_IMAGE -> degradationProperties.getNoImagePressure();
+            case FALLBACK_AUDIT -> degradationProperties.getFallbackAuditPressure();
+            case LOCAL_ONLY -> degradationProperties.getLocalOnlyPressure();
+        };
+    }
+}
@@ -0,0 +1,399 @@
+package com.moon.taxadvisor.service;
+
+import com.moon.taxadvisor.config.SimulationProperties;
+import com.moon.taxadvisor.domain.Money;
+import com.moon.taxadvisor.domain.PositionBook;
+import com.moon.taxadvisor.domain.RealizedGain;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * 보유 종목별 연말까지의 가격 경로를 기하 브라운 운동으로 N번 생성해 손절 시점별 세금과 세후 자산을 비교한다.
+ * - now: 현재 손실 종목을 오늘 현재가로 전량 매도
+ * - december: 12월 1일 가격 기준 손실 종목을 그날 전량 매도
+ * - hold: 매도하지 않음
+ * 매도 대금은 현금으로 보유한다고 가정하고, 세후 자산 = 연말 평가금액 + 매도 대금 - 예상 세액이다.
+ * 경로 구간은 ForkJoin 작업으로 나누고, 작업마다 SplittableRandom을 split해 seed가 같으면 결과도 같다.
+ * 계산은 공용 풀이 아닌 전용 ForkJoinPool(simulation.parallelism)에서 돌리고,
+ * 실행 하나가 경로 수만큼 배열을 잡으므로 동시에 실행하는 시뮬레이션 수를 simulation.max-concurrent-runs로 제한한다.
+ */
+@Service
+@Slf4j
+public class HarvestTimingSimulator {
+
+    private static final double TAX_RATE = TaxCalculationService.TAX_RATE_PERCENT / 100.0;
+    private static final MonthDay DECEMBER_HARVEST_DAY = MonthDay.of(12, 1);
+    private static final double DAYS_PER_YEAR = 365.0;
+    private static final double[] PERCENTILES = {5, 25, 50, 75, 95};
+
+    private final PortfolioQueryService portfolioQueryService;
+    private final SimulationProperties simulationProperties;
+    private final Scheduler blockingScheduler;
+    private final ForkJoinPool pool;
+    private final Semaphore runPermits;
+
+    public HarvestTimingSimulator(
+            PortfolioQueryService portfolioQueryService,
+            SimulationProperties simulationProperties,
+            Scheduler blockingScheduler
+    ) {
+        this.portfolioQueryService = portfolioQueryService;
+        this.simulationProperties = simulationProperties;
+        this.blockingScheduler = blockingScheduler;
+        int parallelism = simulationProperties.getParallelism() > 0
+                ? simulationProperties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism);
+        this.runPermits = new Semaphore(Math.max(1, simulationProperties.getMaxConcurrentRuns()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public Mono<SimulationResult> simulate(String userId, SimulationRequest request) {
+        return Mono.fromCallable(() -> simulate(portfolioQueryService.loadSnapshot(userId), request))
+                .subscribeOn(blockingScheduler);
+    }
+
+    public SimulationResult simulate(UserDataSnapshot snapshot, SimulationRequest request) {
+        if (!runPermits.tryAcquire()) {
+            throw new SimulationBusyException(simulationProperties.getMaxConcurrentRuns());
+        }
+        try {
+            // 백분위 정렬과 평균의 병렬 작업도 같은 풀에서 돌도록 실행 전체를 풀에 넘긴다.
+            return pool.submit(() -> run(snapshot, request)).join();
+        } finally {
+            runPermits.release();
+        }
+    }
+
+    private SimulationResult run(UserDataSnapshot snapshot, SimulationRequest request) {
+        int paths = resolvePaths(request.paths());
+        double volatility = orDefault(request.annualVolatilityPercent(), simulationProperties.getAnnualVolatilityPercent()) / 100.0;
+        double drift = orDefault(request.annualDriftPercent(), simulationProperties.getAnnualDriftPercent()) / 100.0;
+        long seed = request.seed() != null ? request.seed() : System.nanoTime();
+
+        LocalDate today = LocalDate.now();
+        LocalDate yearEnd = LocalDate.of(today.getYear(), 12, 31);
+        LocalDate decemberHarvest = DECEMBER_HARVEST_DAY.atYear(today.getYear());
+        long horizonDays = ChronoUnit.DAYS.between(today, yearEnd);
+        long decemberDays = Math.max(0, ChronoUnit.DAYS.between(today, decemberHarvest));
+
+        Model model = Model.of(
+                PositionBook.of(snapshot.portfolios()),
+                sumRealizedGain(snapshot),
+                drift,
+                volatility,
+                decemberDays / DAYS_PER_YEAR,
+                horizonDays / DAYS_PER_YEAR
+        );
+
+        long startedAt = System.nanoTime();
+        Outcomes outcomes = new Outcomes(paths);
+        pool.invoke(new PathTask(
+                model,
+                outcomes,
+                0,
+                paths,
+                Math.max(1, simulationProperties.getPathsPerTask()),
+                new SplittableRandom(seed)
+        ));
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+        long decemberBeatsNow = 0;
+        for (int p = 0; p < paths; p++) {
+            if (outcomes.decemberWealth[p] > outcomes.nowWealth[p]) {
+                decemberBeatsNow++;
+            }
+        }
+
+        Map<String, StrategyOutcome> strategies = new LinkedHashMap<>();
+        strategies.put("now", StrategyOutcome.of(outcomes.nowTax, outcomes.nowWealth));
+        strategies.put("december", StrategyOutcome.of(outcomes.decemberTax, outcomes.decemberWealth));
+        strategies.put("hold", StrategyOutcome.of(outcomes.holdTax, outcomes.holdWealth));
+
+        log.info(
+                "손절 시점 시뮬레이션 완료: userId={}, paths={}, positions={}, parallelism={}, elapsedMs={}",
+                snapshot.userId(),
+                paths,
+                model.size(),
+                pool.getParallelism(),
+                elapsedMs
+        );
+
+        return new SimulationResult(
+                snapshot.userId(),
+                paths,
+                model.size(),
+                horizonDays,
+                decemberDays,
+                volatility * 100,
+                drift * 100,
+                seed,
+                elapsedMs,
+                (double) decemberBeatsNow / paths,
+                strategies
+        );
+    }
+
+    private int resolvePaths(Integer requested) {
+        int paths = requested == null || requested <= 0 ? simulationProperties.getDefaultPaths() : requested;
+        return Math.min(paths, simulationProperties.getMaxPaths());
+    }
+
+    private double orDefault(Double value, double defaultValue) {
+        return value == null ? defaultValue : value;
+    }
+
+    private long sumRealizedGain(UserDataSnapshot snapshot) {
+        long total = 0;
+        for (RealizedGain gain : snapshot.realizedGains()) {
+            total = Money.add(total, Money.fromBigDecimal(gain.getGainAmount()));
+        }
+        return total;
+    }
+
+    /**
+     * 경로 시뮬레이션에 필요한 값을 원 단위 double 배열로 미리 펼쳐 둔다.
+     */
+    private record Model(
+            double[] startPrice,
+            double[] averagePrice,
+            double[] quantity,
+            boolean[] losingNow,
+            double firstDrift,
+            double firstDiffusion,
+            double secondDrift,
+            double secondDiffusion,
+            double nowCash,
+            double nowTax,
+            double holdTax,
+            double realizedGain
+    ) {
+        static Model of(
+                PositionBook book,
+                long realizedGainCents,
+                double drift,
+                double volatility,
+                double decemberYears,
+                double horizonYears
+        ) {
+            int n = book.size();
+            double[] startPrice = new double[n];
+            double[] averagePrice = new double[n];
+            double[] quantity = new double[n];
+            boolean[] losingNow = new boolean[n];
+            double realizedGain = realizedGainCents / (double) Money.ONE_WON;
+            double nowCash = 0;
+            double nowLoss = 0;
+            for (int i = 0; i < n; i++) {
+                startPrice[i] = book.currentPriceCents(i) / (double) Money.ONE_WON;
+                averagePrice[i] = book.averagePriceCents(i) / (double) Money.ONE_WON;
+                quantity[i] = book.quantity(i);
+                losingNow[i] = startPrice[i] < averagePrice[i];
+                if (losingNow[i]) {
+                    nowCash += quantity[i] * startPrice[i];
+                    nowLoss += quantity[i] * (startPrice[i] - averagePrice[i]);
+                }
+            }
+
+            double firstYears = Math.min(decemberYears, horizonYears);
+            double secondYears = Math.max(0, horizonYears - firstYears);
+            double meanAdjustment = drift - volatility * volatility / 2;
+
+            return new Model(
+                    startPrice,
+                    averagePrice,
+                    quantity,
+                    losingNow,
+                    meanAdjustment * firstYears,
+                    volatility * Math.sqrt(firstYears),
+                    meanAdjustment * secondYears,
+                    volatility * Math.sqrt(secondYears),
+                    nowCash,
+                    TAX_RATE * Math.max(realizedGain + nowLoss, 0),
+                    TAX_RATE * Math.max(realizedGain, 0),
+                    realizedGain
+            );
+        }
+
+        int size() {
+            return startPrice.length;
+        }
+    }
+
+    private static final class Outcomes {
+        private final double[] nowTax;
+        private final double[] nowWealth;
+        private final double[] decemberTax;
+        private final double[] decemberWealth;
+        private final double[] holdTax;
+        private final double[] holdWealth;
+
+        private Outcomes(int paths) {
+            nowTax = new double[paths];
+            nowWealth = new double[paths];
+            decemberTax = new double[paths];
+            decemberWealth = new double[paths];
+            holdTax = new double[paths];
+            holdWealth = new double[paths];
+        }
+    }
+
+    private static final class PathTask extends RecursiveAction {
+
+        private final Model model;
+        private final Outcomes outcomes;
+        private final int from;
+        private final int to;
+        private final int pathsPerTask;
+        private final SplittableRandom random;
+
+        private PathTask(Model model, Outcomes outcomes, int from, int to, int pathsPerTask, SplittableRandom random) {
+            this.model = model;
+            this.outcomes = outcomes;
+            this.from = from;
+            this.to = to;
+            this.pathsPerTask = pathsPerTask;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= pathsPerTask) {
+                simulateRange();
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                    new PathTask(model, outcomes, from, middle, pathsPerTask, random.split()),
+                    new PathTask(model, outcomes, middle, to, pathsPerTask, random)
+            );
+        }
+
+        private void simulateRange() {
+            double[] startPrice = model.startPrice();
+            double[] averagePrice = model.averagePrice();
+            double[] quantity = model.quantity();
+            boolean[] losingNow = model.losingNow();
+            double firstDrift = model.firstDrift();
+            double firstDiffusion = model.firstDiffusion();
+            double secondDrift = model.secondDrift();
+            double secondDiffusion = model.secondDiffusion();
+            int n = startPrice.length;
+
+            for (int p = from; p < to; p++) {
+                double holdWealth = 0;
+                double nowWealth = model.nowCash();
+                double decemberWealth = 0;
+                double decemberLoss = 0;
+
+                for (int i = 0; i < n; i++) {
+                    double decemberPrice = startPrice[i]
+                            * Math.exp(firstDrift + firstDiffusion * random.nextGaussian());
+                    double yearEndPrice = decemberPrice
+                            * Math.exp(secondDrift + secondDiffusion * random.nextGaussian());
+                    double yearEndValue = quantity[i] * yearEndPrice;
+
+                    holdWealth += yearEndValue;
+                    if (!losingNow[i]) {
+                        nowWealth += yearEndValue;
+                    }
+                    if (decemberPrice < averagePrice[i]) {
+                        decemberWealth += quantity[i] * decemberPrice;
+                        decemberLoss += quantity[i] * (decemberPrice - averagePrice[i]);
+                    } else {
+                        decemberWealth += yearEndValue;
+                    }
+                }
+
+                double decemberTax = TAX_RATE * Math.max(model.realizedGain() + decemberLoss, 0);
+                outcomes.nowTax[p] = model.nowTax();
+                outcomes.nowWealth[p] = nowWealth - model.nowTax();
+                outcomes.decemberTax[p] = decemberTax;
+                outcomes.decemberWealth[p] = decemberWealth - decemberTax;
+                outcomes.holdTax[p] = model.holdTax();
+                outcomes.holdWealth[p] = holdWealth - model.holdTax();
+            }
+        }
+    }
+
+    /**
+     * 동시 실행 한도에 걸려 시뮬레이션을 시작하지 않았을 때.
+     */
+    public static class SimulationBusyException extends RuntimeException {
+
+        public SimulationBusyException(int maxConcurrentRuns) {
+            super("Too many simulations running: max-concurrent-runs=" + maxConcurrentRuns);
+        }
+    }
+
+    public record SimulationRequest(
+            Integer paths,
+            Double annualVolatilityPercent,
+            Double annualDriftPercent,
+            Long seed
+    ) {
+    }
+
+    public record PercentileBand(BigDecimal p5, BigDecimal p25, BigDecimal p50, BigDecimal p75, BigDecimal p95) {
+
+        static PercentileBand of(double[] values) {
+            double[] sorted = values.clone();
+            Arrays.parallelSort(sorted);
+            BigDecimal[] bands = new BigDecimal[PERCENTILES.length];
+            for (int k = 0; k < PERCENTILES.length; k++) {
+                int index = (int) Math.min(sorted.length - 1, Math.round(PERCENTILES[k] / 100.0 * (sorted.length - 1)));
+                bands[k] = BigDecimal.valueOf(Math.round(sorted[index]));
+            }
+            return new PercentileBand(bands[0], bands[1], bands[2], bands[3], bands[4]);
+        }
+    }
+
+    public record StrategyOutcome(
+            BigDecimal meanTax,
+            BigDecimal meanAfterTaxWealth,
+            PercentileBand tax,
+            PercentileBand afterTaxWealth
+    ) {
+        static StrategyOutcome of(double[] tax, double[] wealth) {
+            return new StrategyOutcome(
+                    BigDecimal.valueOf(Math.round(Arrays.stream(tax).parallel().average().orElse(0))),
+                    BigDecimal.valueOf(Math.round(Arrays.stream(wealth).parallel().average().orElse(0))),
+                    PercentileBand.of(tax),
+                    PercentileBand.of(wealth)
+            );
+        }
+    }
+
+    public record SimulationResult(
+            String userId,
+            int paths,
+            int positions,
+            long horizonDays,
+            long decemberHarvestInDays,
+            double annualVolatilityPercent,
+            double annualDriftPercent,
+            long seed,
+            long elapsedMs,
+            double probabilityDecemberBeatsNow,
+            Map<String, StrategyOutcome> strategies
+    ) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.moon.taxadvisor.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * 종목별 마지막 시세. PriceFeedService가 flush 트랜잭션이 커밋된 뒤에만 갱신하므로
+ * 언제나 커밋된 portfolio.current_price와 같고, 롤백된 시세는 들어오지 않는다.
+ * 조회 서비스는 요청 중 스냅샷을 다시 읽지 않고도 그 뒤에 커밋된 현재가를 쓸 수 있다.
+ */
+@Component
+public class LastPriceCache {
+
+    private final Map<String, BigDecimal> committedPrices = new ConcurrentHashMap<>();
+
+    public LastPriceCache(MeterRegistry meterRegistry) {
+        meterRegistry.gauge("price.feed.symbols", committedPrices, Map::size);
+    }
+
+    public void updateCommitted(Map<String, BigDecimal> priceByStockName) {
+        committedPrices.putAll(priceByStockName);
+    }
+
+    public Optional<BigDecimal> priceOf(String stockName) {
+        return Optional.ofNullable(committedPrices.get(stockName));
+    }
+
+    public BigDecimal priceOrDefault(String stockName, BigDecimal storedPrice) {
+        return committedPrices.getOrDefault(stockName, storedPrice);
+    }
+}
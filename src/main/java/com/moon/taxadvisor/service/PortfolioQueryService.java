@@ -1,15 +1,24 @@
 package com.moon.taxadvisor.service;
 
+import com.moon.taxadvisor.config.VirtualThreadPinningMonitor;
 import com.moon.taxadvisor.domain.Portfolio;
 import com.moon.taxadvisor.domain.RealizedGain;
 import com.moon.taxadvisor.repository.PortfolioRepository;
 import com.moon.taxadvisor.repository.RealizedGainRepository;
+import com.moon.taxadvisor.repository.UserAmount;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -20,43 +29,101 @@ public class PortfolioQueryService {
 
     private final PortfolioRepository portfolioRepository;
     private final RealizedGainRepository realizedGainRepository;
+    private final VirtualThreadPinningMonitor pinningMonitor;
+    private final LastPriceCache lastPriceCache;
+    private final MeterRegistry meterRegistry;
 
     public List<Portfolio> findPortfolioEntities(String userId) {
-        return portfolioRepository.findByUserId(userId);
+        return timedQuery(
+                "portfolioRepository.findByUserId",
+                () -> portfolioRepository.findByUserId(userId)
+        );
     }
 
     public List<RealizedGain> findRealizedGainEntities(String userId) {
-        return realizedGainRepository.findByUserId(userId);
+        return timedQuery(
+                "realizedGainRepository.findByUserId",
+                () -> realizedGainRepository.findByUserId(userId)
+        );
     }
 
-    public List<PortfolioView> getUserPortfolio(String userId) {
-        log.info("AI가 사용자의 포트폴리오 조회를 요청했습니다. userId={}", userId);
-        List<Portfolio> portfolios = findPortfolioEntities(userId);
+    public BigDecimal sumRealizedGain(String userId) {
+        BigDecimal total = timedQuery(
+                "realizedGainRepository.sumGainAmountByUserId",
+                () -> realizedGainRepository.sumGainAmountByUserId(userId)
+        );
+        return total == null ? BigDecimal.ZERO : total;
+    }
 
-        portfolios.stream()
-                .filter(portfolio -> portfolio.getUnrealizedGain().signum() > 0)
-                .max((left, right) -> left.getUnrealizedGain().compareTo(right.getUnrealizedGain()))
-                .ifPresent(portfolio -> log.info(
-                        "DB에서 실시간 수익 {} 원 감지 (종목: {})",
-                        WON_FORMAT.format(portfolio.getUnrealizedGain()),
-                        portfolio.getStockName()));
-
-        return portfolios.stream()
-                .map(portfolio -> new PortfolioView(
-                        portfolio.getMarket().name(),
-                        portfolio.getStockName(),
-                        portfolio.getAveragePrice(),
-                        portfolio.getCurrentPrice(),
-                        portfolio.getQuantity(),
-                        portfolio.getUnrealizedGain(),
-                        portfolio.getUnrealizedRatePercent()
-                ))
+    public BigDecimal sumUnrealizedLoss(String userId) {
+        BigDecimal total = timedQuery(
+                "portfolioRepository.sumUnrealizedLossByUserId",
+                () -> portfolioRepository.sumUnrealizedLossByUserId(userId)
+        );
+        return total == null ? BigDecimal.ZERO : total;
+    }
+
+    public Map<String, BigDecimal> sumRealizedGainByUser(Collection<String> userIds) {
+        return toAmountMap(timedQuery(
+                "realizedGainRepository.sumGainAmountGroupedByUserId",
+                () -> realizedGainRepository.sumGainAmountGroupedByUserId(userIds)
+        ));
+    }
+
+    public Map<String, BigDecimal> sumUnrealizedLossByUser(Collection<String> userIds) {
+        return toAmountMap(timedQuery(
+                "portfolioRepository.sumUnrealizedLossGroupedByUserId",
+                () -> portfolioRepository.sumUnrealizedLossGroupedByUserId(userIds)
+        ));
+    }
+
+    @Transactional(readOnly = true)
+    public UserDataSnapshot loadSnapshot(String userId) {
+        return new UserDataSnapshot(
+                userId,
+                List.copyOf(findPortfolioEntities(userId)),
+                List.copyOf(findRealizedGainEntities(userId))
+        );
+    }
+
+    /**
+     * 현재가는 LastPriceCache(커밋된 마지막 시세)를 우선 쓰고, 아직 시세가 없는 종목은 스냅샷의 DB 값을 쓴다.
+     * 캐시는 flush가 커밋된 뒤에만 바뀌므로 DB에 반영되지 않은 가격을 보여주지 않는다.
+     */
+    public List<PortfolioView> getUserPortfolio(UserDataSnapshot snapshot) {
+        log.info("AI가 사용자의 포트폴리오 조회를 요청했습니다. userId={}", snapshot.userId());
+        List<PortfolioView> views = snapshot.portfolios().stream()
+                .map(portfolio -> {
+                    BigDecimal currentPrice = lastPriceCache.priceOrDefault(
+                            portfolio.getStockName(),
+                            portfolio.getCurrentPrice()
+                    );
+                    return new PortfolioView(
+                            portfolio.getMarket().name(),
+                            portfolio.getStockName(),
+                            portfolio.getAveragePrice(),
+                            currentPrice,
+                            portfolio.getQuantity(),
+                            portfolio.unrealizedGainAt(currentPrice),
+                            portfolio.unrealizedRatePercentAt(currentPrice)
+                    );
+                })
                 .toList();
+
+        views.stream()
+                .filter(view -> view.unrealizedGain().signum() > 0)
+                .max((left, right) -> left.unrealizedGain().compareTo(right.unrealizedGain()))
+                .ifPresent(view -> log.info(
+                        "DB에서 실시간 수익 {} 원 감지 (종목: {})",
+                        WON_FORMAT.format(view.unrealizedGain()),
+                        view.stockName()));
+
+        return views;
     }
 
-    public RealizedGainView getRealizedGains(String userId) {
-        log.info("AI가 확정 손익 조회를 요청했습니다. userId={}", userId);
-        List<RealizedGain> gains = findRealizedGainEntities(userId);
+    public RealizedGainView getRealizedGains(UserDataSnapshot snapshot) {
+        log.info("AI가 확정 손익 조회를 요청했습니다. userId={}", snapshot.userId());
+        List<RealizedGain> gains = snapshot.realizedGains();
         BigDecimal total = gains.stream()
                 .map(RealizedGain::getGainAmount)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
@@ -75,6 +142,25 @@ public class PortfolioQueryService {
         );
     }
 
+    /**
+     * 리포지토리 호출 하나를 db.query{query} 타이머와 pinning 진단 구간으로 함께 감싼다.
+     */
+    private <T> T timedQuery(String query, Supplier<T> call) {
+        return Timer.builder("db.query")
+                .description("PortfolioQueryService repository call latency")
+                .tag("query", query)
+                .register(meterRegistry)
+                .record(() -> pinningMonitor.observe(query, call));
+    }
+
+    private Map<String, BigDecimal> toAmountMap(List<UserAmount> amounts) {
+        Map<String, BigDecimal> result = new HashMap<>(amounts.size() * 2);
+        for (UserAmount amount : amounts) {
+            result.put(amount.getUserId(), amount.getAmount());
+        }
+        return result;
+    }
+
     public record PortfolioView(
             String market,
             String stockName,
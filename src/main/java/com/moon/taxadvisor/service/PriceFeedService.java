@@ -0,0 +1,138 @@
+package com.moon.taxadvisor.service;
+
+import com.moon.taxadvisor.client.pricefeed.PriceFeedSource;
+import com.moon.taxadvisor.client.pricefeed.PriceTick;
+import com.moon.taxadvisor.config.PriceFeedProperties;
+import com.moon.taxadvisor.repository.PriceUpdateRepository;
+import com.moon.taxadvisor.repository.TaxLedgerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.Disposable;
+
+/**
+ * 시세 틱을 종목별로 합쳐(마지막 값만 유지) flush 주기마다 DB에 반영한다.
+ * 같은 트랜잭션에서 이전 가격과 새 가격의 차이만큼 세금 원장을 한 문장으로 증분 갱신한 뒤,
+ * 종목 하나당 set-based UPDATE 한 번으로 모든 보유자의 현재가를 바꾼다. 커밋된 뒤에 LastPriceCache를 갱신한다.
+ * 가격만 바뀐 경우에는 사용자별 데이터 변경 이벤트를 발행하지 않는다.
+ * Gemini 응답 캐시 키에는 도구 결과(현재가 포함)가 들어가므로 가격이 바뀌면 자연히 다른 키가 된다.
+ */
+@Service
+@Slf4j
+public class PriceFeedService {
+
+    private final PriceFeedSource priceFeedSource;
+    private final PriceUpdateRepository priceUpdateRepository;
+    private final TaxLedgerRepository taxLedgerRepository;
+    private final LastPriceCache lastPriceCache;
+    private final TransactionTemplate transactionTemplate;
+    private final PriceFeedProperties priceFeedProperties;
+    private final Map<String, BigDecimal> pendingPrices = new ConcurrentHashMap<>();
+    private final Counter tickCounter;
+    private final Counter updatedRowCounter;
+    private final Timer flushTimer;
+
+    private volatile Disposable subscription;
+
+    public PriceFeedService(
+            PriceFeedSource priceFeedSource,
+            PriceUpdateRepository priceUpdateRepository,
+            TaxLedgerRepository taxLedgerRepository,
+            LastPriceCache lastPriceCache,
+            TransactionTemplate transactionTemplate,
+            PriceFeedProperties priceFeedProperties,
+            MeterRegistry meterRegistry
+    ) {
+        this.priceFeedSource = priceFeedSource;
+        this.priceUpdateRepository = priceUpdateRepository;
+        this.taxLedgerRepository = taxLedgerRepository;
+        this.lastPriceCache = lastPriceCache;
+        this.transactionTemplate = transactionTemplate;
+        this.priceFeedProperties = priceFeedProperties;
+        this.tickCounter = Counter.builder("price.feed.ticks").register(meterRegistry);
+        this.updatedRowCounter = Counter.builder("price.feed.rows.updated").register(meterRegistry);
+        this.flushTimer = Timer.builder("price.feed.flush").register(meterRegistry);
+        meterRegistry.gauge("price.feed.pending.symbols", pendingPrices, Map::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!priceFeedProperties.isEnabled()) {
+            return;
+        }
+
+        subscription = priceFeedSource.ticks()
+                .subscribe(
+                        this::onTick,
+                        exception -> log.error("시세 피드 구독이 오류로 종료되었습니다.", exception),
+                        () -> log.info("시세 피드가 종료되었습니다.")
+                );
+        log.info("시세 피드 구독 시작: flushIntervalMs={}", priceFeedProperties.getFlushIntervalMs());
+    }
+
+    @PreDestroy
+    public void stop() {
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    void onTick(PriceTick tick) {
+        tickCounter.increment();
+        pendingPrices.put(tick.stockName(), tick.price());
+    }
+
+    @Scheduled(fixedDelayString = "${price-feed.flush-interval-ms:1000}")
+    public void flush() {
+        if (pendingPrices.isEmpty()) {
+            return;
+        }
+
+        Map<String, BigDecimal> batch = new HashMap<>();
+        for (String stockName : List.copyOf(pendingPrices.keySet())) {
+            BigDecimal price = pendingPrices.remove(stockName);
+            if (price != null) {
+                batch.put(stockName, price);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                // 원장 변화량은 이전 가격을 기준으로 구하므로 현재가를 바꾸기 전에 반영한다.
+                int updatedLedgers = taxLedgerRepository.applyPriceMoves(batch);
+                int updatedRows = priceUpdateRepository.updateCurrentPrices(batch);
+                updatedRowCounter.increment(updatedRows);
+                // 롤백되면 호출되지 않으므로 캐시는 커밋된 DB 값과 어긋나지 않는다.
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        lastPriceCache.updateCommitted(batch);
+                    }
+                });
+                log.debug("시세 반영: symbols={}, updatedRows={}, updatedLedgers={}",
+                        batch.size(), updatedRows, updatedLedgers);
+            }));
+        } catch (RuntimeException exception) {
+            batch.forEach(pendingPrices::putIfAbsent);
+            log.error("시세 반영에 실패했습니다. 다음 주기에 다시 시도합니다. symbols={}", batch.keySet(), exception);
+        }
+    }
+}
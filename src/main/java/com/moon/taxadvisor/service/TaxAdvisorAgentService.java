@@ -1,23 +1,46 @@
 package com.moon.taxadvisor.service;
 
 import com.moon.taxadvisor.client.gemini.GeminiClient;
+import com.moon.taxadvisor.client.gemini.GeminiModels.Candidate;
 import com.moon.taxadvisor.client.gemini.GeminiModels.Content;
 import com.moon.taxadvisor.client.gemini.GeminiModels.FunctionCall;
-import com.moon.taxadvisor.client.gemini.GeminiModels.GenerateContentResponse;
+import com.moon.taxadvisor.client.gemini.GeminiModels.FunctionResponse;
+import com.moon.taxadvisor.client.gemini.GeminiResponseCache;
+import com.moon.taxadvisor.client.resilience.UpstreamGuard;
+import com.moon.taxadvisor.client.resilience.UpstreamRejectedException;
 import com.moon.taxadvisor.config.GeminiProperties;
-import com.moon.taxadvisor.domain.Portfolio;
+import com.moon.taxadvisor.config.HarvestProperties;
+import com.moon.taxadvisor.domain.TaxLedgerEntry;
 import com.moon.taxadvisor.service.TaxCalculationService.TaxPreview;
+import com.moon.taxadvisor.service.TaxLossHarvestOptimizer.HarvestConstraints;
+import com.moon.taxadvisor.service.TaxLossHarvestOptimizer.HarvestPlan;
 import com.moon.taxadvisor.tool.TaxToolDefinitions;
+import com.moon.taxadvisor.tool.ToolResultEncoder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 @Service
 @RequiredArgsConstructor
@@ -36,6 +59,7 @@ public class TaxAdvisorAgentService {
             - 손절 후 과세표준 = max(확정손익 합계 + 미실현 손실 합계, 0)
             - 해외 250만 기본공제, 국내 금투세 5천만 기준, 수수료/환율은 현재 엔진에 반영되지 않는다.
             절세 전략은 반드시 손실 실현(Tax-loss Harvesting) 실행안을 포함해라.
+            getHarvestPlan 도구는 위 계산식으로 세금을 최소화하는 매도 종목과 수량을 미리 계산해 돌려준다. 실행안은 이 계획을 근거로 작성해라.
             반드시 아래 형식을 지켜라:
             1) 현재 상황 요약 (KR/US 구분)
             2) 손실 실현(손절) 시 세금 변화 (데모 계산식 기준)
@@ -45,72 +69,379 @@ public class TaxAdvisorAgentService {
             """;
 
     private final GeminiClient geminiClient;
+    private final GeminiResponseCache geminiResponseCache;
+    @Qualifier("geminiUpstreamGuard")
+    private final UpstreamGuard geminiUpstreamGuard;
     private final GeminiProperties geminiProperties;
+    private final HarvestProperties harvestProperties;
     private final TaxToolDefinitions taxToolDefinitions;
     private final PortfolioQueryService portfolioQueryService;
     private final TaxCalculationService taxCalculationService;
+    private final TaxLedgerService taxLedgerService;
+    private final TaxLossHarvestOptimizer taxLossHarvestOptimizer;
+    private final ToolResultEncoder toolResultEncoder;
+    private final MeterRegistry meterRegistry;
+    private final Scheduler blockingScheduler;
 
     public AgentResult advise(String question) {
-        String normalizedQuestion = (question == null || question.isBlank())
-                ? "현재 포트폴리오 기준 절세 전략을 알려줘."
-                : question.trim();
-        log.info("Agent 1 입력 수신: userId={}, question={}", DEFAULT_USER_ID, normalizedQuestion);
+        return adviseReactive(question).block();
+    }
 
-        TaxPreview preview = taxCalculationService.calculatePreview(DEFAULT_USER_ID);
-        logUserBaseline(DEFAULT_USER_ID, preview);
-        String fallbackAdvice = buildFallbackAdvice(preview);
+    public Mono<AgentResult> adviseReactive(String question) {
+        return prepareReactive().flatMap(prepared -> adviseReactive(question, prepared));
+    }
 
-        if (!geminiClient.isConfigured()) {
-            log.warn("Gemini API Key가 없어 로컬 계산 결과로 응답합니다.");
-            return new AgentResult(fallbackAdvice, 0, preview, true);
-        }
+    /**
+     * 세금 원장 한 행으로 세금 미리보기와 기본 현황 로그를 만든다.
+     * 전체 보유/확정 내역 스냅샷은 요청당 한 번만, 도구 실행이나 손절 계획이 필요할 때 읽는다.
+     * harvest.attach-to-advice=true(기본)이면 응답에 붙일 손절 계획 때문에 모든 요청이 스냅샷을 읽고 최적화를 실행한다.
+     */
+    public Mono<PreparedAdvice> prepareReactive() {
+        return Mono.fromCallable(() -> {
+                    TaxLedgerEntry ledger = taxLedgerService.getEntry(DEFAULT_USER_ID);
+                    TaxPreview preview = taxCalculationService.calculatePreview(ledger);
+                    logUserBaseline(ledger, preview);
+                    return new PreparedAdvice(DEFAULT_USER_ID, preview);
+                })
+                .subscribeOn(blockingScheduler);
+    }
 
-        List<Content> conversation = new ArrayList<>();
-        conversation.add(com.moon.taxadvisor.client.gemini.GeminiModels.userText(
-                "userId는 me로 고정이다. " + normalizedQuestion));
+    public Mono<AgentResult> adviseReactive(String question, PreparedAdvice prepared) {
+        return Mono.defer(() -> {
+            String normalizedQuestion = normalizeQuestion(question);
+            log.info("Agent 1 입력 수신: userId={}, question={}", DEFAULT_USER_ID, normalizedQuestion);
+            return startLoop(normalizedQuestion, prepared);
+        });
+    }
 
-        return runRecursiveLoop(conversation, preview, fallbackAdvice, 1, false);
+    /**
+     * 과부하 시 Gemini를 부르지 않고 세금 미리보기만으로 로컬 권고안을 만든다.
+     */
+    public Mono<AgentResult> adviseLocalReactive() {
+        return prepareReactive().flatMap(this::adviseLocalReactive);
     }
 
-    private AgentResult runRecursiveLoop(
-            List<Content> conversation,
-            TaxPreview preview,
-            String fallbackAdvice,
-            int iteration,
-            boolean toolCalled
-    ) {
+    public Mono<AgentResult> adviseLocalReactive(PreparedAdvice prepared) {
+        return Mono.fromSupplier(() -> {
+            log.warn("과부하 단계로 Gemini 호출 없이 로컬 권고안을 반환합니다. userId={}", prepared.userId());
+            AgentResult result = new AgentResult(
+                    buildFallbackAdvice(prepared.preview()),
+                    0,
+                    prepared.preview(),
+                    null,
+                    true,
+                    new AgentTrace(0, 0, "degraded", List.of())
+            );
+            recordLoop("degraded", result, 0);
+            return result;
+        });
+    }
+
+    /**
+     * 최종 답변 텍스트를 토큰(청크) 단위로 흘려보낸다.
+     * 도구 호출 전 턴은 재요청 대상이므로 텍스트를 내보내지 않고, 도구 결과를 받은 뒤의 턴부터 스트리밍한다.
+     * 이미 텍스트를 보낸 턴에 함수 호출이 섞여 있으면 RESET으로 그 텍스트를 버리게 하고,
+     * 오류나 빈 응답으로 끝나면 FALLBACK으로 로컬 권고안 전체를 보낸다.
+     */
+    public Flux<StreamDelta> adviseStream(String question) {
+        return prepareReactive().flatMapMany(prepared -> Flux.defer(() -> {
+            String normalizedQuestion = normalizeQuestion(question);
+            log.info("Agent 1 스트리밍 입력 수신: userId={}, question={}", DEFAULT_USER_ID, normalizedQuestion);
+            AgentSession session = newSession(normalizedQuestion, prepared);
+
+            if (!geminiClient.isConfigured()) {
+                log.warn("Gemini API Key가 없어 로컬 계산 결과로 응답합니다.");
+                return Flux.just(StreamDelta.fallback(session.fallbackAdvice()));
+            }
+            if (geminiProperties.isPrefetchTools()) {
+                return prefetchToolContext(session)
+                        .thenMany(Flux.defer(() -> runStreamingLoop(session, 1, true)))
+                        .onErrorResume(exception -> {
+                            log.error("도구 결과 사전 조회에 실패했습니다. 로컬 계산 결과를 반환합니다.", exception);
+                            return Flux.just(StreamDelta.fallback(session.fallbackAdvice()));
+                        });
+            }
+            return runStreamingLoop(session, 1, false);
+        }));
+    }
+
+    private Flux<StreamDelta> runStreamingLoop(AgentSession session, int iteration, boolean toolCalled) {
         int maxIterations = geminiProperties.getMaxIterations();
         if (iteration > maxIterations) {
             log.warn("최대 반복 횟수({})를 초과해 로컬 계산으로 종료합니다.", maxIterations);
-            return new AgentResult(fallbackAdvice, maxIterations, preview, true);
+            return Flux.just(StreamDelta.fallback(session.fallbackAdvice()));
         }
 
         log.info(
-                "Agent 1 반복 시작: iteration={}/{}, conversationSize={}, toolCalled={}",
+                "Agent 1 스트리밍 반복 시작: iteration={}/{}, conversationSize={}, toolCalled={}",
                 iteration,
                 maxIterations,
-                conversation.size(),
+                session.conversation().size(),
                 toolCalled
         );
 
-        GenerateContentResponse response;
-        try {
-            response = geminiClient.generateContent(conversation, taxToolDefinitions.buildTools(), SYSTEM_PROMPT);
-        } catch (Exception exception) {
-            log.error("Gemini 호출 중 오류가 발생했습니다. 로컬 계산 결과를 반환합니다.", exception);
-            return new AgentResult(fallbackAdvice, iteration, preview, true);
+        List<Content> chunks = new ArrayList<>();
+        AtomicBoolean textEmitted = new AtomicBoolean(false);
+        AtomicBoolean functionCallSeen = new AtomicBoolean(false);
+
+        return geminiClient.streamContent(session.conversation(), taxToolDefinitions.buildTools(), SYSTEM_PROMPT)
+                .doOnNext(chunks::add)
+                .concatMapIterable(chunk -> {
+                    if (!chunk.functionCalls().isEmpty() && functionCallSeen.compareAndSet(false, true)
+                            && textEmitted.getAndSet(false)) {
+                        // 함수 호출이 섞인 턴은 최종 답변이 아니므로 이미 보낸 텍스트를 버리게 한다.
+                        log.info("Agent 1 스트리밍 턴에 함수 호출이 섞여 전송한 텍스트를 취소합니다. iteration={}", iteration);
+                        return List.of(StreamDelta.reset());
+                    }
+                    if (!toolCalled || functionCallSeen.get() || chunk.texts().isEmpty()) {
+                        return List.<StreamDelta>of();
+                    }
+                    textEmitted.set(true);
+                    return chunk.texts().stream().map(StreamDelta::ofText).toList();
+                })
+                .concatWith(Flux.defer(() -> continueStreamingLoop(
+                        session,
+                        com.moon.taxadvisor.client.gemini.GeminiModels.mergeStreamedChunks(chunks),
+                        iteration,
+                        toolCalled,
+                        textEmitted.get()
+                )))
+                .onErrorResume(exception -> {
+                    log.error("Gemini 스트리밍 호출 중 오류가 발생했습니다. 로컬 계산 결과를 반환합니다.", exception);
+                    StreamDelta fallback = StreamDelta.fallback(session.fallbackAdvice());
+                    return textEmitted.get() ? Flux.just(StreamDelta.reset(), fallback) : Flux.just(fallback);
+                });
+    }
+
+    private Flux<StreamDelta> continueStreamingLoop(
+            AgentSession session,
+            Content modelContent,
+            int iteration,
+            boolean toolCalled,
+            boolean textEmitted
+    ) {
+        if (modelContent.parts().isEmpty()) {
+            log.warn("Gemini 스트리밍 응답이 비어 있어 로컬 계산 결과를 반환합니다.");
+            return Flux.just(StreamDelta.fallback(session.fallbackAdvice()));
+        }
+
+        session.conversation().add(modelContent);
+        List<FunctionCall> functionCalls = modelContent.functionCalls();
+
+        if (functionCalls.isEmpty()) {
+            if (!toolCalled) {
+                log.warn("함수 호출 없이 답변이 생성되었습니다. 함수 호출을 재요청합니다. iteration={}", iteration);
+                session.conversation().add(com.moon.taxadvisor.client.gemini.GeminiModels.userText(
+                        "반드시 최소 1회 이상 getUserPortfolio 또는 getRealizedGains를 호출한 뒤 최종 답변을 작성해라."));
+                return runStreamingLoop(session, iteration + 1, false);
+            }
+
+            log.info("Agent 1 스트리밍 답변 완료: iteration={}, textEmitted={}", iteration, textEmitted);
+            return textEmitted ? Flux.empty() : Flux.just(StreamDelta.fallback(session.fallbackAdvice()));
+        }
+
+        return session.snapshot()
+                .flatMap(snapshot -> executeTools(functionCalls, snapshot))
+                .flatMapMany(executions -> {
+                    boolean nextToolCalled = appendToolResponses(session, executions, iteration, toolCalled);
+                    return runStreamingLoop(session, iteration + 1, nextToolCalled);
+                });
+    }
+
+    /**
+     * 에이전트 루프와 손절 최적화를 동시에 실행하고, 최적화 결과를 응답에 붙인다.
+     * harvest.attach-to-advice=false이면 최적화를 따로 실행하지 않고 사전 조회로 이미 계산된 계획만 붙인다.
+     * 루프 소요 시간과 Gemini 호출 횟수는 mode(local, tool-loop, prefetch, degraded) 태그로 기록해 두 방식을 비교할 수 있게 한다.
+     */
+    private Mono<AgentResult> startLoop(String normalizedQuestion, PreparedAdvice prepared) {
+        AgentSession session = newSession(normalizedQuestion, prepared);
+
+        String mode;
+        Mono<AgentResult> loop;
+        if (!geminiClient.isConfigured()) {
+            log.warn("Gemini API Key가 없어 로컬 계산 결과로 응답합니다.");
+            mode = "local";
+            loop = Mono.just(new AgentResult(session.fallbackAdvice(), 0, session.preview(), true));
+        } else if (geminiProperties.isPrefetchTools()) {
+            mode = "prefetch";
+            loop = runAgentLoop(session, AgentState.PREFETCH_TOOLS);
+        } else {
+            mode = "tool-loop";
+            loop = runAgentLoop(session, AgentState.CALL_MODEL);
+        }
+        loop = loop.elapsed().map(timed -> {
+            recordLoop(mode, timed.getT2(), timed.getT1());
+            return timed.getT2();
+        });
+
+        Mono<AgentResult> result;
+        if (harvestProperties.isAttachToAdvice()) {
+            Mono<Optional<HarvestPlan>> harvestPlan = session.harvestPlan()
+                    .map(Optional::of)
+                    .onErrorResume(exception -> {
+                        log.error("손절 최적화 계산에 실패했습니다. 계획 없이 응답합니다.", exception);
+                        return Mono.just(Optional.empty());
+                    });
+            result = Mono.zip(loop, harvestPlan, (answer, plan) -> answer.withHarvestPlan(plan.orElse(null)));
+        } else {
+            result = loop.map(answer -> answer.withHarvestPlan(session.completedHarvestPlan().get()));
+        }
+        if (geminiProperties.isSlaEnabled() && !"local".equals(mode)) {
+            // 루프만이 아니라 손절 계획까지 합친 결과에 마감을 건다. 계획이 늦어도 응답은 마감 안에 나간다.
+            result = raceWithFallback(result, session);
         }
+        return result;
+    }
 
-        Content modelContent = response.firstCandidate()
-                .map(candidate -> candidate.content())
-                .orElse(null);
+    /**
+     * Gemini 답변과 로컬 계산 권고안을 경쟁시킨다. 로컬 권고안은 세션 생성 시 이미 계산되어 있으므로,
+     * gemini.sla-deadline-ms 안에 Gemini 답변이 오면 그것을, 아니면 로컬 권고안(이미 끝난 손절 계획 포함)을 바로 돌려준다.
+     * gemini.sla-finish-in-background=true이면 늦은 Gemini 루프를 취소하지 않고 끝까지 실행해 응답 캐시를 채운다.
+     * 이때 요청은 이미 응답했으므로 수락 슬롯은 돌려주지만, 남은 Gemini 호출은 업스트림 동시 호출 한도 안에서만 실행된다.
+     */
+    private Mono<AgentResult> raceWithFallback(Mono<AgentResult> loop, AgentSession session) {
+        long deadlineMs = geminiProperties.getSlaDeadlineMs();
+        boolean finishInBackground = geminiProperties.isSlaFinishInBackground();
+        return Mono.defer(() -> {
+            AtomicBoolean deadlineMissed = new AtomicBoolean(false);
+            CompletableFuture<AgentResult> llmAnswer = loop.toFuture();
+            if (finishInBackground) {
+                llmAnswer.whenComplete((result, exception) -> {
+                    if (deadlineMissed.get() && exception == null) {
+                        log.info(
+                                "SLA 초과 후 Gemini 루프가 백그라운드에서 끝났습니다. iterations={}, fallbackUsed={}",
+                                result.iterations(),
+                                result.fallbackUsed()
+                        );
+                    }
+                });
+            }
 
-        if (modelContent == null) {
-            log.warn("Gemini 응답에 candidate가 없어 로컬 계산 결과를 반환합니다.");
-            return new AgentResult(fallbackAdvice, iteration, preview, true);
+            return Mono.fromFuture(llmAnswer, finishInBackground)
+                    .timeout(Duration.ofMillis(deadlineMs), Mono.fromSupplier(() -> {
+                        deadlineMissed.set(true);
+                        log.warn(
+                                "Gemini 답변이 SLA({}ms) 안에 오지 않아 로컬 계산 결과를 반환합니다. finishInBackground={}",
+                                deadlineMs,
+                                finishInBackground
+                        );
+                        // 손절 계획은 보통 마감 전에 끝나 있으므로 그대로 붙이고, 아직 계산 중일 때만 뺀다.
+                        return new AgentResult(
+                                session.fallbackAdvice(),
+                                0,
+                                session.preview(),
+                                session.completedHarvestPlan().get(),
+                                true,
+                                new AgentTrace(deadlineMs, deadlineMs, "sla-deadline", List.of())
+                        );
+                    }))
+                    .doOnNext(result -> Counter.builder("agent.sla.outcomes")
+                            .description("Which path answered an SLA-raced advice request")
+                            .tag("winner", deadlineMissed.get() ? "fallback" : "llm")
+                            .register(meterRegistry)
+                            .increment());
+        });
+    }
+
+    /**
+     * 에이전트 루프를 상태 기계로 반복 실행한다. 한 번에 한 상태만 실행하고, 상태가 DONE이 될 때까지 다시 구독한다.
+     * 요청 전체는 gemini.latency-budget-ms 안에서 끝나야 하며, Gemini 호출 한 번은 gemini.iteration-timeout-ms와
+     * 남은 예산 중 짧은 쪽을 넘기지 못한다. 남은 예산이 예상 호출 시간보다 짧으면 호출하지 않고 로컬 계산으로 끝낸다.
+     */
+    private Mono<AgentResult> runAgentLoop(AgentSession session, AgentState initialState) {
+        return Mono.defer(() -> {
+            AgentLoop loop = new AgentLoop(session, initialState, geminiProperties.getLatencyBudgetMs());
+            return Mono.defer(() -> step(loop))
+                    .repeat(() -> loop.state != AgentState.DONE)
+                    .then(Mono.fromSupplier(loop::toResult));
+        });
+    }
+
+    private Mono<Void> step(AgentLoop loop) {
+        AgentState state = loop.state;
+        int iteration = loop.iteration;
+        long startedAt = System.nanoTime();
+        Mono<Void> action = switch (state) {
+            case PREFETCH_TOOLS -> prefetchToolContext(loop.session)
+                    .timeout(loop.remaining())
+                    .doOnSuccess(ignored -> {
+                        loop.toolCalled = true;
+                        loop.state = AgentState.CALL_MODEL;
+                    });
+            case CALL_MODEL -> callModel(loop);
+            case EXECUTE_TOOLS -> executePendingTools(loop);
+            case DONE -> Mono.empty();
+        };
+        return action
+                .onErrorResume(exception -> {
+                    int geminiCalls = state == AgentState.PREFETCH_TOOLS ? iteration - 1 : iteration;
+                    if (exception instanceof TimeoutException) {
+                        log.warn("Agent 1 상태 실행이 마감 시간을 넘겨 로컬 계산 결과를 반환합니다. state={}, iteration={}", state, iteration);
+                        loop.finishWithFallback(geminiCalls, "deadline");
+                    } else if (exception instanceof UpstreamRejectedException rejected) {
+                        log.warn("Gemini 호출이 거절되어 로컬 계산 결과를 반환합니다. reason={}", rejected.getReason());
+                        loop.finishWithFallback(geminiCalls, rejected.getReason());
+                    } else {
+                        log.error("Agent 1 상태 실행 중 오류가 발생했습니다. 로컬 계산 결과를 반환합니다. state={}", state, exception);
+                        loop.finishWithFallback(geminiCalls, "error");
+                    }
+                    return Mono.empty();
+                })
+                .then(Mono.fromRunnable(() -> loop.record(state, iteration, System.nanoTime() - startedAt)));
+    }
+
+    private Mono<Void> callModel(AgentLoop loop) {
+        int maxIterations = geminiProperties.getMaxIterations();
+        if (loop.iteration > maxIterations) {
+            log.warn("최대 반복 횟수({})를 초과해 로컬 계산으로 종료합니다.", maxIterations);
+            loop.finishWithFallback(maxIterations, "max-iterations");
+            return Mono.empty();
         }
 
-        conversation.add(modelContent);
+        Duration remaining = loop.remaining();
+        // 캐시 적중은 업스트림을 거치지 않으므로, 실제 Gemini 호출(실패·취소 포함)만으로 만든 추정치를 쓴다.
+        long expectedCallMs = Math.max(geminiProperties.getMinIterationBudgetMs(), geminiUpstreamGuard.latencyEstimateMs());
+        if (remaining.toMillis() < expectedCallMs) {
+            log.warn(
+                    "남은 지연 예산({}ms)이 예상 Gemini 호출 시간({}ms)보다 짧아 로컬 계산으로 조기 종료합니다. iteration={}",
+                    remaining.toMillis(),
+                    expectedCallMs,
+                    loop.iteration
+            );
+            loop.finishWithFallback(loop.iteration - 1, "budget-exhausted");
+            return Mono.empty();
+        }
+
+        Duration deadline = Duration.ofMillis(Math.min(geminiProperties.getIterationTimeoutMs(), remaining.toMillis()));
+        log.info(
+                "Agent 1 반복 시작: iteration={}/{}, conversationSize={}, toolCalled={}, deadlineMs={}",
+                loop.iteration,
+                maxIterations,
+                loop.session.conversation().size(),
+                loop.toolCalled,
+                deadline.toMillis()
+        );
+
+        return geminiResponseCache.generateContent(
+                        DEFAULT_USER_ID,
+                        loop.session.conversation(),
+                        taxToolDefinitions.buildTools(),
+                        SYSTEM_PROMPT
+                )
+                .timeout(deadline)
+                .flatMap(response -> Mono.justOrEmpty(response.firstCandidate().map(Candidate::content)))
+                .doOnNext(modelContent -> handleModelContent(loop, modelContent))
+                .switchIfEmpty(Mono.fromRunnable(() -> {
+                    log.warn("Gemini 응답에 candidate가 없어 로컬 계산 결과를 반환합니다.");
+                    loop.finishWithFallback(loop.iteration, "empty-response");
+                }))
+                .then();
+    }
+
+    private void handleModelContent(AgentLoop loop, Content modelContent) {
+        AgentSession session = loop.session;
+        int iteration = loop.iteration;
+        session.conversation().add(modelContent);
         List<FunctionCall> functionCalls = modelContent.functionCalls();
         String modelText = modelContent.joinedText();
         log.info(
@@ -121,85 +452,261 @@ public class TaxAdvisorAgentService {
                 abbreviate(modelText, 140)
         );
 
-        if (functionCalls.isEmpty()) {
-            String answer = modelText;
-            if (!toolCalled) {
-                log.warn("함수 호출 없이 답변이 생성되었습니다. 함수 호출을 재요청합니다. iteration={}", iteration);
-                conversation.add(com.moon.taxadvisor.client.gemini.GeminiModels.userText(
-                        "반드시 최소 1회 이상 getUserPortfolio 또는 getRealizedGains를 호출한 뒤 최종 답변을 작성해라."));
-                return runRecursiveLoop(conversation, preview, fallbackAdvice, iteration + 1, false);
-            }
+        if (!functionCalls.isEmpty()) {
+            loop.pendingCalls = functionCalls;
+            loop.state = AgentState.EXECUTE_TOOLS;
+            return;
+        }
+
+        if (!loop.toolCalled) {
+            log.warn("함수 호출 없이 답변이 생성되었습니다. 함수 호출을 재요청합니다. iteration={}", iteration);
+            session.conversation().add(com.moon.taxadvisor.client.gemini.GeminiModels.userText(
+                    "반드시 최소 1회 이상 getUserPortfolio 또는 getRealizedGains를 호출한 뒤 최종 답변을 작성해라."));
+            loop.iteration++;
+            return;
+        }
+
+        if (modelText.isBlank()) {
+            loop.finishWithFallback(iteration, "blank-answer");
+        } else {
+            loop.finish(modelText, iteration, false, "answered");
+        }
+        log.info(
+                "Agent 1 최종 답변 확정: iteration={}, fallbackUsed={}, answerLength={}",
+                iteration,
+                loop.fallbackUsed,
+                loop.answer.length()
+        );
+    }
+
+    private Mono<Void> executePendingTools(AgentLoop loop) {
+        return loop.session.snapshot()
+                .flatMap(snapshot -> executeTools(loop.pendingCalls, snapshot))
+                .timeout(loop.remaining())
+                .doOnNext(executions -> {
+                    loop.toolCalled = appendToolResponses(loop.session, executions, loop.iteration, loop.toolCalled);
+                    loop.pendingCalls = List.of();
+                    loop.iteration++;
+                    loop.state = AgentState.CALL_MODEL;
+                })
+                .then();
+    }
 
-            boolean fallbackUsed = answer.isBlank();
-            if (fallbackUsed) {
-                answer = fallbackAdvice;
+    /**
+     * 모델이 처음에 요청할 도구 결과를 미리 조회해 첫 턴에 functionCall/functionResponse 쌍으로 넣는다.
+     * 모델은 도구 결과를 받은 상태로 시작하므로 도구 호출 왕복 없이 첫 호출에서 답변할 수 있다.
+     * 손절 계획은 세션에서 이미 계산 중인 기본 제약 결과를 그대로 쓴다.
+     */
+    private Mono<Void> prefetchToolContext(AgentSession session) {
+        long startedAt = System.currentTimeMillis();
+        List<FunctionCall> dataCalls = List.of(
+                new FunctionCall("getUserPortfolio", Map.of("userId", DEFAULT_USER_ID)),
+                new FunctionCall("getRealizedGains", Map.of("userId", DEFAULT_USER_ID))
+        );
+        return Mono.zip(session.snapshot().flatMap(snapshot -> executeTools(dataCalls, snapshot)), session.harvestPlan())
+                .doOnNext(results -> {
+                    List<ToolExecution> executions = new ArrayList<>(results.getT1());
+                    executions.add(new ToolExecution(
+                            new FunctionCall("getHarvestPlan", Map.of("userId", DEFAULT_USER_ID)),
+                            Map.of("userId", DEFAULT_USER_ID, "plan", results.getT2())
+                    ));
+
+                    List<FunctionResponse> responses = new ArrayList<>(executions.size());
+                    for (ToolExecution execution : executions) {
+                        String name = execution.functionCall().name();
+                        responses.add(new FunctionResponse(name, toolResultEncoder.encode(name, execution.result())));
+                        log.info(
+                                "Agent 1 도구 사전 조회: name={}, resultSummary={}",
+                                name,
+                                summarizeToolResult(name, execution.result())
+                        );
+                    }
+                    session.conversation().add(com.moon.taxadvisor.client.gemini.GeminiModels.syntheticModelFunctionCalls(
+                            executions.stream().map(ToolExecution::functionCall).toList()));
+                    session.conversation().add(com.moon.taxadvisor.client.gemini.GeminiModels.userFunctionResponses(responses));
+                    log.info(
+                            "Agent 1 도구 사전 조회 완료: toolCount={}, elapsedMs={}",
+                            executions.size(),
+                            System.currentTimeMillis() - startedAt
+                    );
+                })
+                .then();
+    }
+
+    private void recordLoop(String mode, AgentResult result, long elapsedMs) {
+        Timer.builder("agent.loop.latency")
+                .description("Agent 1 loop latency from first Gemini call to final answer")
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .record(elapsedMs, TimeUnit.MILLISECONDS);
+        DistributionSummary.builder("agent.loop.iterations")
+                .description("Gemini generateContent calls per Agent 1 loop")
+                .tag("mode", mode)
+                .serviceLevelObjectives(0, 1, 2, 3, 4, 5, 6, 8, 10)
+                .register(meterRegistry)
+                .record(result.iterations());
+        AgentTrace trace = result.trace();
+        if (trace != null) {
+            Counter.builder("agent.loop.exits")
+                    .description("Agent 1 loop exits by reason")
+                    .tag("mode", mode)
+                    .tag("reason", trace.exitReason())
+                    .register(meterRegistry)
+                    .increment();
+            for (StateTiming timing : trace.states()) {
+                Timer.builder("agent.loop.state")
+                        .description("Time spent in each Agent 1 loop state")
+                        .tag("state", timing.state())
+                        .register(meterRegistry)
+                        .record(timing.elapsedMs(), TimeUnit.MILLISECONDS);
             }
+        }
+        log.info(
+                "Agent 1 루프 종료: mode={}, iterations={}, fallbackUsed={}, exitReason={}, elapsedMs={}",
+                mode,
+                result.iterations(),
+                result.fallbackUsed(),
+                trace == null ? "-" : trace.exitReason(),
+                elapsedMs
+        );
+    }
 
-            log.info(
-                    "Agent 1 최종 답변 확정: iteration={}, fallbackUsed={}, answerLength={}",
-                    iteration,
-                    fallbackUsed,
-                    answer.length()
-            );
-            return new AgentResult(answer, iteration, preview, fallbackUsed);
+    private AgentSession newSession(String normalizedQuestion, PreparedAdvice prepared) {
+        List<Content> conversation = new ArrayList<>();
+        conversation.add(com.moon.taxadvisor.client.gemini.GeminiModels.userText(
+                "userId는 me로 고정이다. " + normalizedQuestion));
+        Mono<UserDataSnapshot> snapshot = Mono.fromCallable(() -> portfolioQueryService.loadSnapshot(prepared.userId()))
+                .subscribeOn(blockingScheduler)
+                .cache();
+        AtomicReference<HarvestPlan> completedHarvestPlan = new AtomicReference<>();
+        Mono<HarvestPlan> harvestPlan = snapshot.map(taxLossHarvestOptimizer::optimize)
+                .doOnNext(completedHarvestPlan::set)
+                .cache();
+        return new AgentSession(
+                conversation,
+                snapshot,
+                harvestPlan,
+                completedHarvestPlan,
+                prepared.preview(),
+                buildFallbackAdvice(prepared.preview())
+        );
+    }
+
+    private String normalizeQuestion(String question) {
+        return (question == null || question.isBlank())
+                ? "현재 포트폴리오 기준 절세 전략을 알려줘."
+                : question.trim();
+    }
+
+    /**
+     * 한 턴에 요청된 함수 호출을 동시에 실행하고, 결과는 요청 순서대로 돌려준다.
+     */
+    private Mono<List<ToolExecution>> executeTools(List<FunctionCall> functionCalls, UserDataSnapshot snapshot) {
+        long startedAt = System.currentTimeMillis();
+        return Flux.fromIterable(functionCalls)
+                .flatMapSequential(functionCall -> Mono.fromCallable(() -> {
+                            log.info(
+                                    "Gemini가 함수 실행을 요청했습니다. name={}, args={}",
+                                    functionCall.name(),
+                                    functionCall.args()
+                            );
+                            return new ToolExecution(functionCall, timedTool(functionCall, snapshot));
+                        })
+                        .subscribeOn(blockingScheduler))
+                .collectList()
+                .doOnNext(executions -> log.info(
+                        "Agent 1 도구 병렬 실행 완료: toolCount={}, elapsedMs={}",
+                        executions.size(),
+                        System.currentTimeMillis() - startedAt
+                ));
+    }
+
+    /**
+     * 도구 호출 수와 소요 시간은 agent.tool.calls{tool, outcome}으로 남긴다. 선언되지 않은 이름은 unknown 태그로 묶는다.
+     */
+    private Object timedTool(FunctionCall functionCall, UserDataSnapshot snapshot) {
+        String tool = isSupportedTool(functionCall.name()) ? functionCall.name() : "unknown";
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Object result = executeTool(functionCall, snapshot);
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("agent.tool.calls")
+                    .description("Agent 1 tool executions by tool name")
+                    .tag("tool", tool)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
         }
+    }
 
+    private boolean appendToolResponses(
+            AgentSession session,
+            List<ToolExecution> executions,
+            int iteration,
+            boolean toolCalled
+    ) {
         boolean nextToolCalled = toolCalled;
-        for (FunctionCall functionCall : functionCalls) {
-            log.info("Gemini가 함수 실행을 요청했습니다. name={}, args={}", functionCall.name(), functionCall.args());
-            Object result = executeTool(functionCall);
-            conversation.add(com.moon.taxadvisor.client.gemini.GeminiModels.userFunctionResponse(
+        for (ToolExecution execution : executions) {
+            FunctionCall functionCall = execution.functionCall();
+            session.conversation().add(com.moon.taxadvisor.client.gemini.GeminiModels.userFunctionResponse(
                     functionCall.name(),
-                    Map.of("data", result)));
+                    toolResultEncoder.encode(functionCall.name(), execution.result())));
             nextToolCalled = nextToolCalled || isSupportedTool(functionCall.name());
             log.info(
                     "Agent 1 도구 실행 완료: iteration={}, name={}, resultSummary={}",
                     iteration,
                     functionCall.name(),
-                    summarizeToolResult(functionCall.name(), result)
+                    summarizeToolResult(functionCall.name(), execution.result())
             );
         }
-
-        return runRecursiveLoop(conversation, preview, fallbackAdvice, iteration + 1, nextToolCalled);
+        return nextToolCalled;
     }
 
-    private Object executeTool(FunctionCall functionCall) {
+    private Object executeTool(FunctionCall functionCall, UserDataSnapshot requestSnapshot) {
         String functionName = functionCall.name();
         Map<String, Object> args = functionCall.args() == null ? Map.of() : functionCall.args();
         String userId = resolveUserId(args);
+        UserDataSnapshot snapshot = userId.equals(requestSnapshot.userId())
+                ? requestSnapshot
+                : portfolioQueryService.loadSnapshot(userId);
 
         return switch (functionName) {
             case "getUserPortfolio" -> {
-                List<PortfolioQueryService.PortfolioView> portfolio = portfolioQueryService.getUserPortfolio(userId);
-                Map<String, List<PortfolioQueryService.PortfolioView>> portfolioByMarket = portfolio.stream()
+                List<PortfolioQueryService.PortfolioView> portfolio = portfolioQueryService.getUserPortfolio(snapshot);
+                // 시장별 그룹은 portfolio의 market 컬럼으로 충분하므로 같은 PortfolioView를 두 번 보내지 않고 요약만 붙인다.
+                Map<String, Map<String, Object>> marketSummary = portfolio.stream()
                         .collect(Collectors.groupingBy(
                                 PortfolioQueryService.PortfolioView::market,
                                 LinkedHashMap::new,
-                                Collectors.toList()
-                        ));
-
-                Map<String, Map<String, Object>> marketSummary = portfolioByMarket.entrySet().stream()
-                        .collect(Collectors.toMap(
-                                Map.Entry::getKey,
-                                entry -> Map.of(
-                                        "positionCount", entry.getValue().size(),
-                                        "totalUnrealizedGain", entry.getValue().stream()
+                                Collectors.collectingAndThen(Collectors.toList(), views -> Map.<String, Object>of(
+                                        "positionCount", views.size(),
+                                        "totalUnrealizedGain", views.stream()
                                                 .map(PortfolioQueryService.PortfolioView::unrealizedGain)
                                                 .reduce(BigDecimal.ZERO, BigDecimal::add)
-                                ),
-                                (left, right) -> left,
-                                LinkedHashMap::new
+                                ))
                         ));
 
                 yield Map.of(
                         "userId", userId,
                         "portfolio", portfolio,
-                        "portfolioByMarket", portfolioByMarket,
                         "marketSummary", marketSummary
                 );
             }
+            case "getHarvestPlan" -> {
+                HarvestConstraints defaults = taxLossHarvestOptimizer.defaultConstraints();
+                HarvestConstraints constraints = new HarvestConstraints(
+                        intArg(args, "maxPositionsSold", defaults.maxPositionsSold()),
+                        intArg(args, "minPositionsKeptPerMarket", defaults.minPositionsKeptPerMarket())
+                );
+                yield Map.of(
+                        "userId", userId,
+                        "plan", taxLossHarvestOptimizer.optimize(snapshot, constraints)
+                );
+            }
             case "getRealizedGains" -> {
-                PortfolioQueryService.RealizedGainView view = portfolioQueryService.getRealizedGains(userId);
+                PortfolioQueryService.RealizedGainView view = portfolioQueryService.getRealizedGains(snapshot);
                 yield Map.of(
                         "userId", userId,
                         "totalRealizedGain", view.totalRealizedGain(),
@@ -221,8 +728,14 @@ public class TaxAdvisorAgentService {
         return DEFAULT_USER_ID;
     }
 
+    private int intArg(Map<String, Object> args, String name, int defaultValue) {
+        return args.get(name) instanceof Number number ? number.intValue() : defaultValue;
+    }
+
     private boolean isSupportedTool(String functionName) {
-        return "getUserPortfolio".equals(functionName) || "getRealizedGains".equals(functionName);
+        return "getUserPortfolio".equals(functionName)
+                || "getRealizedGains".equals(functionName)
+                || "getHarvestPlan".equals(functionName);
     }
 
     private String summarizeToolResult(String functionName, Object result) {
@@ -242,6 +755,9 @@ public class TaxAdvisorAgentService {
             int itemCount = items instanceof List<?> list ? list.size() : -1;
             return "totalRealizedGain=" + total + ", itemCount=" + itemCount;
         }
+        if ("getHarvestPlan".equals(functionName) && map.get("plan") instanceof HarvestPlan plan) {
+            return "salesCount=" + plan.sales().size() + ", taxSavings=" + plan.taxPreviewAfterPlan().estimatedTaxSavings();
+        }
         return "keys=" + map.keySet();
     }
 
@@ -256,33 +772,14 @@ public class TaxAdvisorAgentService {
         return normalized.substring(0, maxLength) + "...";
     }
 
-    private void logUserBaseline(String userId, TaxPreview preview) {
-        List<Portfolio> portfolios = portfolioQueryService.findPortfolioEntities(userId);
-
-        BigDecimal totalCostBasis = portfolios.stream()
-                .map(portfolio -> portfolio.getAveragePrice().multiply(BigDecimal.valueOf(portfolio.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalMarketValue = portfolios.stream()
-                .map(portfolio -> portfolio.getCurrentPrice().multiply(BigDecimal.valueOf(portfolio.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalUnrealizedPnL = portfolios.stream()
-                .map(Portfolio::getUnrealizedGain)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalUnrealizedLoss = portfolios.stream()
-                .map(Portfolio::getUnrealizedGain)
-                .filter(gain -> gain.signum() < 0)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
+    private void logUserBaseline(TaxLedgerEntry ledger, TaxPreview preview) {
         log.info(
                 "사용자 기본 현황(userId={}): 총평가금액={}원, 투자원금={}원, 미실현손익={}원, 미실현손실={}원, 확정손익={}원, 예상 절감세액={}원",
-                userId,
-                WON_FORMAT.format(totalMarketValue),
-                WON_FORMAT.format(totalCostBasis),
-                WON_FORMAT.format(totalUnrealizedPnL),
-                WON_FORMAT.format(totalUnrealizedLoss),
+                ledger.userId(),
+                WON_FORMAT.format(ledger.marketValue()),
+                WON_FORMAT.format(ledger.costBasis()),
+                WON_FORMAT.format(ledger.unrealizedPnL()),
+                WON_FORMAT.format(ledger.unrealizedLoss()),
                 WON_FORMAT.format(preview.realizedGain()),
                 WON_FORMAT.format(preview.estimatedTaxSavings())
         );
@@ -314,11 +811,133 @@ public class TaxAdvisorAgentService {
                 );
     }
 
+    private record ToolExecution(FunctionCall functionCall, Object result) {
+    }
+
+    private record AgentSession(
+            List<Content> conversation,
+            Mono<UserDataSnapshot> snapshot,
+            Mono<HarvestPlan> harvestPlan,
+            AtomicReference<HarvestPlan> completedHarvestPlan,
+            TaxPreview preview,
+            String fallbackAdvice
+    ) {
+    }
+
+    private enum AgentState {
+        PREFETCH_TOOLS,
+        CALL_MODEL,
+        EXECUTE_TOOLS,
+        DONE
+    }
+
+    /**
+     * 한 요청의 에이전트 루프 상태. 상태 전이는 구독 체인 안에서 순서대로 일어나므로 동기화하지 않는다.
+     */
+    private static final class AgentLoop {
+        private final AgentSession session;
+        private final long latencyBudgetMs;
+        private final long startedAtNanos = System.nanoTime();
+        private final long deadlineNanos;
+        private final List<StateTiming> timings = new ArrayList<>();
+        private AgentState state;
+        private int iteration = 1;
+        private boolean toolCalled;
+        private List<FunctionCall> pendingCalls = List.of();
+        private String answer;
+        private int resultIterations;
+        private boolean fallbackUsed;
+        private String exitReason;
+
+        private AgentLoop(AgentSession session, AgentState initialState, long latencyBudgetMs) {
+            this.session = session;
+            this.state = initialState;
+            this.latencyBudgetMs = latencyBudgetMs;
+            this.deadlineNanos = startedAtNanos + TimeUnit.MILLISECONDS.toNanos(latencyBudgetMs);
+        }
+
+        private Duration remaining() {
+            return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+        }
+
+        private void record(AgentState executed, int executedIteration, long elapsedNanos) {
+            timings.add(new StateTiming(executed.name(), executedIteration, TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+        }
+
+        private void finish(String answer, int iterations, boolean fallbackUsed, String exitReason) {
+            this.answer = answer;
+            this.resultIterations = iterations;
+            this.fallbackUsed = fallbackUsed;
+            this.exitReason = exitReason;
+            this.state = AgentState.DONE;
+        }
+
+        private void finishWithFallback(int iterations, String exitReason) {
+            finish(session.fallbackAdvice(), iterations, true, exitReason);
+        }
+
+        private AgentResult toResult() {
+            AgentTrace trace = new AgentTrace(
+                    latencyBudgetMs,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAtNanos),
+                    exitReason,
+                    List.copyOf(timings)
+            );
+            return new AgentResult(answer, resultIterations, session.preview(), null, fallbackUsed, trace);
+        }
+    }
+
+    public record PreparedAdvice(String userId, TaxPreview preview) {
+    }
+
+    /**
+     * 토큰 스트리밍 조각. TEXT는 답변 조각, RESET은 앞서 보낸 TEXT를 모두 버리라는 신호, FALLBACK은 로컬 권고안 전체다.
+     */
+    public record StreamDelta(Kind kind, String text) {
+        public enum Kind {
+            TEXT,
+            RESET,
+            FALLBACK
+        }
+
+        public static StreamDelta ofText(String text) {
+            return new StreamDelta(Kind.TEXT, text);
+        }
+
+        public static StreamDelta reset() {
+            return new StreamDelta(Kind.RESET, "");
+        }
+
+        public static StreamDelta fallback(String text) {
+            return new StreamDelta(Kind.FALLBACK, text);
+        }
+    }
+
+    /**
+     * 에이전트 루프가 거친 상태별 소요 시간과 종료 사유.
+     * exitReason: answered, max-iterations, budget-exhausted, deadline, error, empty-response, blank-answer,
+     * circuit-open, concurrency-limit, sla-deadline, degraded
+     */
+    public record AgentTrace(long latencyBudgetMs, long elapsedMs, String exitReason, List<StateTiming> states) {
+    }
+
+    public record StateTiming(String state, int iteration, long elapsedMs) {
+    }
+
     public record AgentResult(
             String answer,
             int iterations,
             TaxPreview taxPreview,
-            boolean fallbackUsed
+            HarvestPlan harvestPlan,
+            boolean fallbackUsed,
+            AgentTrace trace
     ) {
+        public AgentResult(String answer, int iterations, TaxPreview taxPreview, boolean fallbackUsed) {
+            this(answer, iterations, taxPreview, null, fallbackUsed, null);
+        }
+
+        public AgentResult withHarvestPlan(HarvestPlan plan) {
+            return new AgentResult(answer, iterations, taxPreview, plan, fallbackUsed, trace);
+        }
     }
 }
@@ -3,17 +3,21 @@ package com.moon.taxadvisor.service;
 import com.moon.taxadvisor.client.gemini.GeminiClient;
 import com.moon.taxadvisor.client.gemini.GeminiModels;
 import com.moon.taxadvisor.client.gemini.GeminiModels.Content;
-import com.moon.taxadvisor.client.gemini.GeminiModels.GenerateContentResponse;
+import com.moon.taxadvisor.client.gemini.GeminiResponseCache;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TaxAuditAgentService {
 
+    private static final String DEFAULT_USER_ID = "me";
     private static final String AUDITOR_SYSTEM_PROMPT = """
             너는 깐깐한 수석 세무 감사관(Auditor)이다.
             이 서비스의 계산식은 데모용 단순 모델(과세표준 * 22%%)이라는 전제를 유지해라.
@@ -31,20 +35,88 @@ public class TaxAuditAgentService {
             """;
 
     private final GeminiClient geminiClient;
+    private final GeminiResponseCache geminiResponseCache;
+
+    /**
+     * 과부하 단계에서 Gemini 감사 대신 쓰는 기본 리스크 검토안.
+     */
+    public String fallbackAudit() {
+        return AUDIT_FALLBACK;
+    }
 
     public String audit(String originalQuestion, String primaryAnswer) {
-        log.info("Agent 2 (Auditor): 1차 전략 리스크 검토 시작...");
-        log.info(
-                "Agent 2 입력 요약: questionLength={}, primaryAnswerLength={}",
-                normalize(originalQuestion).length(),
-                normalize(primaryAnswer).length()
-        );
-
-        if (!geminiClient.isConfigured()) {
-            log.warn("Agent 2 (Auditor): Gemini API Key 미설정으로 기본 리스크 검토안을 반환합니다.");
-            return AUDIT_FALLBACK;
-        }
+        return auditReactive(originalQuestion, primaryAnswer).block();
+    }
+
+    public Mono<String> auditReactive(String originalQuestion, String primaryAnswer) {
+        return Mono.defer(() -> {
+            log.info("Agent 2 (Auditor): 1차 전략 리스크 검토 시작...");
+            log.info(
+                    "Agent 2 입력 요약: questionLength={}, primaryAnswerLength={}",
+                    normalize(originalQuestion).length(),
+                    normalize(primaryAnswer).length()
+            );
+
+            if (!geminiClient.isConfigured()) {
+                log.warn("Agent 2 (Auditor): Gemini API Key 미설정으로 기본 리스크 검토안을 반환합니다.");
+                return Mono.just(AUDIT_FALLBACK);
+            }
+
+            List<Content> conversation = buildConversation(originalQuestion, primaryAnswer);
+
+            return geminiResponseCache.generateContent(
+                            DEFAULT_USER_ID,
+                            conversation,
+                            List.of(),
+                            AUDITOR_SYSTEM_PROMPT
+                    )
+                    .map(response -> response.firstCandidate()
+                            .map(candidate -> candidate.content())
+                            .map(Content::joinedText)
+                            .filter(text -> !text.isBlank())
+                            .orElse(AUDIT_FALLBACK))
+                    .defaultIfEmpty(AUDIT_FALLBACK)
+                    .doOnNext(auditResult -> log.info(
+                            "Agent 2: 검토 완료 fallbackUsed={}, auditLength={}",
+                            AUDIT_FALLBACK.equals(auditResult),
+                            auditResult.length()
+                    ))
+                    .onErrorResume(exception -> {
+                        log.error("Agent 2 (Auditor): 검토 중 오류가 발생해 기본 리스크 검토안을 반환합니다.", exception);
+                        return Mono.just(AUDIT_FALLBACK);
+                    });
+        });
+    }
 
+    /**
+     * 감사 결과를 토큰(청크) 단위로 흘려보낸다. 텍스트가 하나도 오지 않으면 기본 리스크 검토안을 보낸다.
+     */
+    public Flux<String> auditStream(String originalQuestion, String primaryAnswer) {
+        return Flux.defer(() -> {
+            log.info("Agent 2 (Auditor): 스트리밍 리스크 검토 시작...");
+            if (!geminiClient.isConfigured()) {
+                log.warn("Agent 2 (Auditor): Gemini API Key 미설정으로 기본 리스크 검토안을 반환합니다.");
+                return Flux.just(AUDIT_FALLBACK);
+            }
+
+            AtomicBoolean textEmitted = new AtomicBoolean(false);
+            return geminiClient.streamContent(
+                            buildConversation(originalQuestion, primaryAnswer),
+                            List.of(),
+                            AUDITOR_SYSTEM_PROMPT
+                    )
+                    .concatMapIterable(Content::texts)
+                    .doOnNext(text -> textEmitted.set(true))
+                    .concatWith(Flux.defer(() -> textEmitted.get() ? Flux.empty() : Flux.just(AUDIT_FALLBACK)))
+                    .doOnComplete(() -> log.info("Agent 2: 스트리밍 검토 완료 textEmitted={}", textEmitted.get()))
+                    .onErrorResume(exception -> {
+                        log.error("Agent 2 (Auditor): 스트리밍 검토 중 오류가 발생했습니다.", exception);
+                        return textEmitted.get() ? Flux.empty() : Flux.just(AUDIT_FALLBACK);
+                    });
+        });
+    }
+
+    private List<Content> buildConversation(String originalQuestion, String primaryAnswer) {
         String auditInput = """
                 [사용자 원문 질문]
                 %s
@@ -56,32 +128,7 @@ public class TaxAuditAgentService {
                         normalize(originalQuestion),
                         normalize(primaryAnswer)
                 );
-
-        List<Content> conversation = List.of(GeminiModels.userText(auditInput));
-
-        try {
-            GenerateContentResponse response = geminiClient.generateContent(
-                    conversation,
-                    List.of(),
-                    AUDITOR_SYSTEM_PROMPT
-            );
-
-            String auditResult = response.firstCandidate()
-                    .map(candidate -> candidate.content())
-                    .map(Content::joinedText)
-                    .filter(text -> !text.isBlank())
-                    .orElse(AUDIT_FALLBACK);
-
-            log.info(
-                    "Agent 2: 검토 완료 fallbackUsed={}, auditLength={}",
-                    AUDIT_FALLBACK.equals(auditResult),
-                    auditResult.length()
-            );
-            return auditResult;
-        } catch (Exception exception) {
-            log.error("Agent 2 (Auditor): 검토 중 오류가 발생해 기본 리스크 검토안을 반환합니다.", exception);
-            return AUDIT_FALLBACK;
-        }
+        return List.of(GeminiModels.userText(auditInput));
     }
 
     private String normalize(String value) {
@@ -1,52 +1,120 @@
 package com.moon.taxadvisor.service;
 
-import com.moon.taxadvisor.domain.Portfolio;
-import com.moon.taxadvisor.domain.RealizedGain;
+import com.moon.taxadvisor.domain.Money;
+import com.moon.taxadvisor.domain.PositionBook;
+import com.moon.taxadvisor.domain.TaxLedgerEntry;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 @Service
 @RequiredArgsConstructor
 public class TaxCalculationService {
 
-    private static final BigDecimal TAX_RATE = new BigDecimal("0.22");
+    static final long TAX_RATE_PERCENT = 22;
+    private static final int BATCH_SIZE = 500;
 
     private final PortfolioQueryService portfolioQueryService;
+    private final TaxLedgerService taxLedgerService;
+    private final Scheduler blockingScheduler;
 
+    /**
+     * 세금 원장 한 행으로 계산한다. 원장 행이 아직 없을 때만 원본 테이블 집계로 대신한다.
+     */
     public TaxPreview calculatePreview(String userId) {
-        List<RealizedGain> realizedGains = portfolioQueryService.findRealizedGainEntities(userId);
-        List<Portfolio> portfolios = portfolioQueryService.findPortfolioEntities(userId);
+        return taxLedgerService.findEntry(userId)
+                .map(this::calculatePreview)
+                .orElseGet(() -> toPreview(
+                        portfolioQueryService.sumRealizedGain(userId),
+                        portfolioQueryService.sumUnrealizedLoss(userId)
+                ));
+    }
+
+    public TaxPreview calculatePreview(TaxLedgerEntry entry) {
+        return toPreview(entry.realizedTotal(), entry.unrealizedLoss());
+    }
+
+    /**
+     * 사용자 ID 스트림을 BATCH_SIZE 단위로 묶어 묶음마다 세금 원장 조회 1회로 미리보기를 계산한다.
+     * 원장 행이 없는 사용자만 group by 집계 쿼리로 보충한다.
+     * 한 번에 한 묶음만 메모리에 두므로 요청 사용자 수와 무관하게 메모리 사용량이 일정하다.
+     */
+    public Flux<UserTaxPreview> calculatePreviews(Flux<String> userIds) {
+        return userIds
+                .buffer(BATCH_SIZE)
+                .concatMap(batch -> Mono.fromCallable(() -> calculateBatch(batch))
+                        .subscribeOn(blockingScheduler), 1)
+                .concatMapIterable(previews -> previews);
+    }
+
+    private List<UserTaxPreview> calculateBatch(List<String> userIds) {
+        Map<String, TaxLedgerEntry> ledgerByUser = taxLedgerService.findEntries(userIds).stream()
+                .collect(Collectors.toMap(TaxLedgerEntry::userId, Function.identity()));
 
-        BigDecimal totalRealizedGain = realizedGains.stream()
-                .map(RealizedGain::getGainAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<String> missingUserIds = userIds.stream()
+                .filter(userId -> !ledgerByUser.containsKey(userId))
+                .distinct()
+                .toList();
+        Map<String, BigDecimal> realizedByUser = missingUserIds.isEmpty()
+                ? Map.of()
+                : portfolioQueryService.sumRealizedGainByUser(missingUserIds);
+        Map<String, BigDecimal> unrealizedLossByUser = missingUserIds.isEmpty()
+                ? Map.of()
+                : portfolioQueryService.sumUnrealizedLossByUser(missingUserIds);
 
-        BigDecimal totalUnrealizedLoss = portfolios.stream()
-                .map(Portfolio::getUnrealizedGain)
-                .filter(value -> value.signum() < 0)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return userIds.stream()
+                .map(userId -> {
+                    TaxLedgerEntry entry = ledgerByUser.get(userId);
+                    TaxPreview preview = entry != null
+                            ? calculatePreview(entry)
+                            : toPreview(
+                                    realizedByUser.getOrDefault(userId, BigDecimal.ZERO),
+                                    unrealizedLossByUser.getOrDefault(userId, BigDecimal.ZERO)
+                            );
+                    return new UserTaxPreview(userId, preview);
+                })
+                .toList();
+    }
+
+    public TaxPreview toPreview(BigDecimal totalRealizedGain, BigDecimal totalUnrealizedLoss) {
+        return toPreview(Money.fromBigDecimal(totalRealizedGain), Money.fromBigDecimal(totalUnrealizedLoss));
+    }
+
+    /**
+     * 보유 종목 전체로 미리보기를 계산한다. 합계는 long 고정소수점으로 한 번에 구한다.
+     */
+    public TaxPreview calculatePreview(PositionBook positions, long realizedGainCents) {
+        return toPreview(realizedGainCents, positions.totals().unrealizedLoss());
+    }
 
-        BigDecimal taxableBefore = floorToZero(totalRealizedGain);
-        BigDecimal estimatedTaxBefore = taxableBefore.multiply(TAX_RATE).setScale(0, RoundingMode.HALF_UP);
+    /**
+     * 계산은 전(1/100원) 단위 long으로 하고, 응답용 BigDecimal(원 단위)은 마지막에 한 번만 만든다.
+     */
+    public TaxPreview toPreview(long totalRealizedGainCents, long totalUnrealizedLossCents) {
+        long taxableBefore = Money.floorToZero(totalRealizedGainCents);
+        long estimatedTaxBefore = Money.applyRateToWon(taxableBefore, TAX_RATE_PERCENT, 100);
 
-        BigDecimal taxableAfterLossHarvest = floorToZero(totalRealizedGain.add(totalUnrealizedLoss));
-        BigDecimal estimatedTaxAfter = taxableAfterLossHarvest.multiply(TAX_RATE).setScale(0, RoundingMode.HALF_UP);
-        BigDecimal estimatedTaxSavings = floorToZero(estimatedTaxBefore.subtract(estimatedTaxAfter));
+        long taxableAfterLossHarvest = Money.floorToZero(Money.add(totalRealizedGainCents, totalUnrealizedLossCents));
+        long estimatedTaxAfter = Money.applyRateToWon(taxableAfterLossHarvest, TAX_RATE_PERCENT, 100);
+        long estimatedTaxSavings = Money.floorToZero(Money.subtract(estimatedTaxBefore, estimatedTaxAfter));
 
         return new TaxPreview(
-                totalRealizedGain.setScale(0, RoundingMode.HALF_UP),
-                totalUnrealizedLoss.setScale(0, RoundingMode.HALF_UP),
-                estimatedTaxBefore,
-                estimatedTaxAfter,
-                estimatedTaxSavings
+                BigDecimal.valueOf(Money.roundToWon(totalRealizedGainCents)),
+                BigDecimal.valueOf(Money.roundToWon(totalUnrealizedLossCents)),
+                BigDecimal.valueOf(estimatedTaxBefore),
+                BigDecimal.valueOf(estimatedTaxAfter),
+                BigDecimal.valueOf(estimatedTaxSavings)
         );
     }
 
-    private BigDecimal floorToZero(BigDecimal value) {
-        return value.signum() < 0 ? BigDecimal.ZERO : value;
+    public record UserTaxPreview(String userId, TaxPreview preview) {
     }
 
     public record TaxPreview(
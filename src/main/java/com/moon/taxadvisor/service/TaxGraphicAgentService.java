@@ -5,6 +5,7 @@ import java.time.Duration;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 @Service
 @RequiredArgsConstructor
@@ -16,44 +17,49 @@ public class TaxGraphicAgentService {
     private final NanoBananaClient nanoBananaClient;
 
     public String createInfographic(String originalQuestion, String primaryStrategy, String auditReview) {
-        log.info("Agent 3 (Designer): 인포그래픽 이미지 생성 요청 중...");
-        log.info(
-                "Agent 3 입력 요약: questionLength={}, primaryLength={}, auditLength={}",
-                normalize(originalQuestion).length(),
-                normalize(primaryStrategy).length(),
-                normalize(auditReview).length()
-        );
-
-        if (!nanoBananaClient.isConfigured()) {
-            log.warn("Agent 3 (Designer): Nano Banana API Key 미설정으로 이미지 생성을 건너뜁니다.");
-            return "";
-        }
-
-        GraphicPromptInput promptInput = new GraphicPromptInput(
-                normalize(originalQuestion),
-                normalize(primaryStrategy),
-                normalize(auditReview)
-        );
-
-        String prompt = buildEnglishPrompt(promptInput);
-        log.info("Agent 3 프롬프트 생성 완료: promptLength={}", prompt.length());
+        return createInfographicReactive(originalQuestion, primaryStrategy, auditReview).block();
+    }
 
-        try {
-            String base64Image = nanoBananaClient.generateImageBase64(prompt)
-                    .blockOptional(DEFAULT_TIMEOUT)
-                    .orElse("");
+    public Mono<String> createInfographicReactive(String originalQuestion, String primaryStrategy, String auditReview) {
+        return Mono.defer(() -> {
+            log.info("Agent 3 (Designer): 인포그래픽 이미지 생성 요청 중...");
+            log.info(
+                    "Agent 3 입력 요약: questionLength={}, primaryLength={}, auditLength={}",
+                    normalize(originalQuestion).length(),
+                    normalize(primaryStrategy).length(),
+                    normalize(auditReview).length()
+            );
 
-            if (base64Image.isBlank()) {
-                log.warn("Agent 3 (Designer): 이미지 데이터가 비어 있습니다.");
-                return "";
+            if (!nanoBananaClient.isConfigured()) {
+                log.warn("Agent 3 (Designer): Nano Banana API Key 미설정으로 이미지 생성을 건너뜁니다.");
+                return Mono.just("");
             }
 
-            log.info("Agent 3: 나노 바나나 이미지 렌더링 완료! base64Length={}", base64Image.length());
-            return base64Image;
-        } catch (Exception exception) {
-            log.error("Agent 3 (Designer): 이미지 생성 중 오류가 발생했습니다.", exception);
-            return "";
-        }
+            GraphicPromptInput promptInput = new GraphicPromptInput(
+                    normalize(originalQuestion),
+                    normalize(primaryStrategy),
+                    normalize(auditReview)
+            );
+
+            String prompt = buildEnglishPrompt(promptInput);
+            log.info("Agent 3 프롬프트 생성 완료: promptLength={}", prompt.length());
+
+            return nanoBananaClient.generateImageBase64(prompt)
+                    .timeout(DEFAULT_TIMEOUT)
+                    .defaultIfEmpty("")
+                    .map(base64Image -> {
+                        if (base64Image.isBlank()) {
+                            log.warn("Agent 3 (Designer): 이미지 데이터가 비어 있습니다.");
+                            return "";
+                        }
+                        log.info("Agent 3: 나노 바나나 이미지 렌더링 완료! base64Length={}", base64Image.length());
+                        return base64Image;
+                    })
+                    .onErrorResume(exception -> {
+                        log.error("Agent 3 (Designer): 이미지 생성 중 오류가 발생했습니다.", exception);
+                        return Mono.just("");
+                    });
+        });
     }
 
     private String buildEnglishPrompt(GraphicPromptInput input) {
@@ -0,0 +1,107 @@
+package com.moon.taxadvisor.service;
+
+import com.moon.taxadvisor.config.TaxLedgerProperties;
+import com.moon.taxadvisor.domain.TaxLedgerEntry;
+import com.moon.taxadvisor.repository.TaxLedgerRepository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 사용자별 세금 원장(tax_ledger) 조회와 재구축/검증.
+ * 증분 갱신은 {@link com.moon.taxadvisor.repository.TaxLedgerChangeListener}가 쓰기 트랜잭션 안에서 처리하고,
+ * 이 서비스는 원장을 원본 테이블과 주기적으로 대조해 어긋난 사용자를 다시 계산한다.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TaxLedgerService {
+
+    private final TaxLedgerRepository taxLedgerRepository;
+    private final TaxLedgerProperties taxLedgerProperties;
+
+    @Transactional(readOnly = true)
+    public Optional<TaxLedgerEntry> findEntry(String userId) {
+        return taxLedgerRepository.findByUserId(userId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TaxLedgerEntry> findEntries(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        return taxLedgerRepository.findByUserIds(userIds);
+    }
+
+    /**
+     * 원장 행을 읽고, 행이 없으면 원본 테이블에서 한 번에 계산한다. 데이터가 전혀 없는 사용자는 0으로 채운다.
+     */
+    @Transactional(readOnly = true)
+    public TaxLedgerEntry getEntry(String userId) {
+        return taxLedgerRepository.findByUserId(userId)
+                .or(() -> {
+                    log.warn("세금 원장 행이 없어 원본 테이블에서 계산합니다. userId={}", userId);
+                    return taxLedgerRepository.computeFromSource(userId);
+                })
+                .orElseGet(() -> TaxLedgerEntry.empty(userId));
+    }
+
+    @Transactional
+    public int recompute(Collection<String> userIds) {
+        return taxLedgerRepository.recompute(userIds);
+    }
+
+    @Transactional
+    public int rebuildAll() {
+        return rebuild();
+    }
+
+    /**
+     * data.sql 등 엔티티 리스너를 거치지 않은 초기 데이터를 원장에 반영한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildOnStartup() {
+        if (taxLedgerProperties.isRebuildOnStartup()) {
+            rebuild();
+        }
+    }
+
+    private int rebuild() {
+        long startedAt = System.currentTimeMillis();
+        int rows = taxLedgerRepository.rebuildAll();
+        log.info("세금 원장 재구축 완료: rows={}, elapsedMs={}", rows, System.currentTimeMillis() - startedAt);
+        return rows;
+    }
+
+    @Scheduled(
+            initialDelayString = "${tax-ledger.verify-interval-ms:600000}",
+            fixedDelayString = "${tax-ledger.verify-interval-ms:600000}"
+    )
+    @Transactional
+    public void verify() {
+        if (!taxLedgerProperties.isVerifyEnabled()) {
+            return;
+        }
+
+        long startedAt = System.currentTimeMillis();
+        List<String> mismatched = taxLedgerRepository.findMismatchedUserIds();
+        if (mismatched.isEmpty()) {
+            log.info("세금 원장 검증 완료: 불일치 없음, elapsedMs={}", System.currentTimeMillis() - startedAt);
+            return;
+        }
+
+        log.warn("세금 원장 불일치 발견: count={}, userIds={}", mismatched.size(), mismatched);
+        if (taxLedgerProperties.isRepairOnVerify()) {
+            taxLedgerRepository.recompute(mismatched);
+            log.info("세금 원장 불일치 사용자를 다시 계산했습니다. count={}", mismatched.size());
+        }
+    }
+}
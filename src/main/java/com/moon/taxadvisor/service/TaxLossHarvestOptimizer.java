@@ -0,0 +1,302 @@
+package com.moon.taxadvisor.service;
+
+import com.moon.taxadvisor.config.HarvestProperties;
+import com.moon.taxadvisor.domain.Market;
+import com.moon.taxadvisor.domain.Money;
+import com.moon.taxadvisor.domain.Portfolio;
+import com.moon.taxadvisor.domain.PositionBook;
+import com.moon.taxadvisor.domain.RealizedGain;
+import com.moon.taxadvisor.service.TaxCalculationService.TaxPreview;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * 손실 실현(Tax-loss Harvesting) 매도 계획을 결정적으로 계산한다.
+ * 목표는 사전식으로 (1) 손절 후 남는 과세표준 최소화 (2) 매도 종목 수 최소화 (3) 필요 이상으로 실현한 손실 최소화이다.
+ * 손실이 큰 종목부터 분기하는 branch and bound로 탐색하며, 남은 슬롯으로 얻을 수 있는 최대 손실(정렬된 누적합)로 가지치기한다.
+ * 탐색 노드가 harvest.max-search-nodes를 넘으면 그때까지의 최선안을 optimal=false로 돌려준다.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TaxLossHarvestOptimizer {
+
+    private final TaxCalculationService taxCalculationService;
+    private final HarvestProperties harvestProperties;
+
+    public HarvestPlan optimize(UserDataSnapshot snapshot) {
+        return optimize(snapshot, defaultConstraints());
+    }
+
+    public HarvestPlan optimize(UserDataSnapshot snapshot, HarvestConstraints constraints) {
+        long realizedGainCents = 0;
+        for (RealizedGain gain : snapshot.realizedGains()) {
+            realizedGainCents = Money.add(realizedGainCents, Money.fromBigDecimal(gain.getGainAmount()));
+        }
+        return optimize(snapshot.portfolios(), realizedGainCents, constraints);
+    }
+
+    public HarvestConstraints defaultConstraints() {
+        return new HarvestConstraints(
+                harvestProperties.getMaxPositionsSold(),
+                harvestProperties.getMinPositionsKeptPerMarket()
+        );
+    }
+
+    public HarvestPlan optimize(List<Portfolio> portfolios, long realizedGainCents, HarvestConstraints constraints) {
+        long startedAt = System.nanoTime();
+        PositionBook book = PositionBook.of(portfolios);
+
+        int[] candidates = IntStream.range(0, book.size())
+                .filter(i -> book.quantity(i) > 0 && book.unrealizedGainCents(i) < 0)
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer i) -> book.unrealizedGainCents(i)))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        int[] heldPerMarket = new int[Market.values().length];
+        for (int i = 0; i < book.size(); i++) {
+            if (book.quantity(i) > 0) {
+                heldPerMarket[portfolios.get(i).getMarket().ordinal()]++;
+            }
+        }
+
+        Search search = new Search(book, portfolios, candidates, heldPerMarket, realizedGainCents, constraints,
+                harvestProperties.getMaxSearchNodes());
+        search.run();
+
+        List<HarvestSale> sales = new ArrayList<>(search.bestCount);
+        long harvestedLossCents = 0;
+        for (int k = 0; k < search.bestCount; k++) {
+            int index = search.bestPositions[k];
+            long shares = search.bestShares[k];
+            long perShareLoss = Money.subtract(book.averagePriceCents(index), book.currentPriceCents(index));
+            long realizedLoss = Money.multiply(perShareLoss, shares);
+            harvestedLossCents = Money.add(harvestedLossCents, realizedLoss);
+
+            Portfolio portfolio = portfolios.get(index);
+            sales.add(new HarvestSale(
+                    portfolio.getMarket().name(),
+                    portfolio.getStockName(),
+                    shares,
+                    book.quantity(index),
+                    shares == book.quantity(index),
+                    portfolio.getAveragePrice(),
+                    portfolio.getCurrentPrice(),
+                    Money.toBigDecimal(realizedLoss).negate()
+            ));
+        }
+
+        TaxPreview preview = taxCalculationService.toPreview(realizedGainCents, -harvestedLossCents);
+        long elapsedMicros = (System.nanoTime() - startedAt) / 1_000;
+        log.info(
+                "손절 최적화 완료: candidates={}, positionsSold={}, harvestedLoss={}, taxSavings={}, nodes={}, optimal={}, elapsedMicros={}",
+                candidates.length,
+                sales.size(),
+                Money.roundToWon(harvestedLossCents),
+                preview.estimatedTaxSavings(),
+                search.nodes,
+                search.exhaustive,
+                elapsedMicros
+        );
+
+        return new HarvestPlan(
+                List.copyOf(sales),
+                BigDecimal.valueOf(Money.roundToWon(harvestedLossCents)).negate(),
+                preview,
+                constraints,
+                search.nodes,
+                search.exhaustive
+        );
+    }
+
+    private static final class Search {
+
+        private final long need;
+        private final int maxPositions;
+        private final boolean keepConstraint;
+        private final int maxNodes;
+        private final long[] perShareLoss;
+        private final long[] quantity;
+        private final int[] market;
+        private final int[] positionIndex;
+        private final long[] prefixLoss;
+        private final int[] fullSalesLeft;
+
+        private final int[] stackPositions;
+        private final long[] stackShares;
+
+        private long bestUncovered;
+        private int bestCount;
+        private long bestOvershoot;
+        private int[] bestPositions = new int[0];
+        private long[] bestShares = new long[0];
+
+        private long nodes;
+        private boolean exhaustive = true;
+
+        private Search(
+                PositionBook book,
+                List<Portfolio> portfolios,
+                int[] candidates,
+                int[] heldPerMarket,
+                long realizedGainCents,
+                HarvestConstraints constraints,
+                int maxNodes
+        ) {
+            int n = candidates.length;
+            this.need = Math.max(realizedGainCents, 0);
+            this.maxPositions = constraints.maxPositionsSold() > 0 ? Math.min(constraints.maxPositionsSold(), n) : n;
+            this.keepConstraint = constraints.minPositionsKeptPerMarket() > 0;
+            this.maxNodes = maxNodes;
+            this.perShareLoss = new long[n];
+            this.quantity = new long[n];
+            this.market = new int[n];
+            this.positionIndex = candidates;
+            this.prefixLoss = new long[n + 1];
+            for (int j = 0; j < n; j++) {
+                int index = candidates[j];
+                perShareLoss[j] = Money.subtract(book.averagePriceCents(index), book.currentPriceCents(index));
+                quantity[j] = book.quantity(index);
+                market[j] = portfolios.get(index).getMarket().ordinal();
+                prefixLoss[j + 1] = Money.add(prefixLoss[j], Money.multiply(perShareLoss[j], quantity[j]));
+            }
+            this.fullSalesLeft = new int[heldPerMarket.length];
+            for (int m = 0; m < heldPerMarket.length; m++) {
+                fullSalesLeft[m] = Math.max(0, heldPerMarket[m] - constraints.minPositionsKeptPerMarket());
+            }
+            this.stackPositions = new int[maxPositions];
+            this.stackShares = new long[maxPositions];
+            this.bestUncovered = need;
+        }
+
+        private void run() {
+            if (need > 0 && maxPositions > 0) {
+                search(0, 0, 0);
+            }
+        }
+
+        private void search(int start, int chosen, long accumulated) {
+            int slots = maxPositions - chosen;
+            if (slots == 0) {
+                return;
+            }
+            for (int j = start; j < perShareLoss.length; j++) {
+                if (++nodes > maxNodes) {
+                    exhaustive = false;
+                    return;
+                }
+                if (bestUncovered == 0 && (chosen + 1 > bestCount || (chosen + 1 == bestCount && bestOvershoot == 0))) {
+                    return;
+                }
+
+                long bound = prefixLoss[Math.min(perShareLoss.length, j + slots)] - prefixLoss[j];
+                long bestReachableUncovered = Math.max(need - accumulated - bound, 0);
+                if (bestReachableUncovered > bestUncovered
+                        || (bestReachableUncovered == bestUncovered && bestUncovered > 0)) {
+                    // 정렬되어 있으므로 뒤의 종목은 상한이 더 작다.
+                    break;
+                }
+
+                boolean fullAllowed = fullSalesLeft[market[j]] > 0;
+                long maxShares = fullAllowed ? quantity[j] : quantity[j] - 1;
+                if (maxShares <= 0) {
+                    continue;
+                }
+
+                trySell(j, chosen, accumulated, maxShares);
+                if (!exhaustive) {
+                    return;
+                }
+                if (keepConstraint && fullAllowed && quantity[j] > 1
+                        && Money.add(accumulated, Money.multiply(perShareLoss[j], quantity[j] - 1)) < need) {
+                    // 전량 매도 대신 1주를 남겨 시장별 보유 종목 수를 지키는 경우
+                    trySell(j, chosen, accumulated, quantity[j] - 1);
+                    if (!exhaustive) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void trySell(int j, int chosen, long accumulated, long maxShares) {
+            long remaining = need - accumulated;
+            long shares = Math.min(maxShares, ceilDiv(remaining, perShareLoss[j]));
+            long loss = Money.multiply(perShareLoss[j], shares);
+            long total = Money.add(accumulated, loss);
+            boolean fullSale = shares == quantity[j];
+
+            stackPositions[chosen] = j;
+            stackShares[chosen] = shares;
+            record(chosen + 1, total);
+
+            if (total < need) {
+                if (fullSale) {
+                    fullSalesLeft[market[j]]--;
+                }
+                search(j + 1, chosen + 1, total);
+                if (fullSale) {
+                    fullSalesLeft[market[j]]++;
+                }
+            }
+        }
+
+        private void record(int count, long total) {
+            long uncovered = Math.max(need - total, 0);
+            long overshoot = Math.max(total - need, 0);
+            boolean better = uncovered < bestUncovered
+                    || (uncovered == bestUncovered && count < bestCount)
+                    || (uncovered == bestUncovered && count == bestCount && overshoot < bestOvershoot);
+            if (!better) {
+                return;
+            }
+            bestUncovered = uncovered;
+            bestCount = count;
+            bestOvershoot = overshoot;
+            bestPositions = new int[count];
+            bestShares = Arrays.copyOf(stackShares, count);
+            for (int k = 0; k < count; k++) {
+                bestPositions[k] = positionIndex[stackPositions[k]];
+            }
+        }
+
+        private static long ceilDiv(long dividend, long divisor) {
+            return -Math.floorDiv(-dividend, divisor);
+        }
+    }
+
+    /**
+     * maxPositionsSold가 0이면 제한 없음. minPositionsKeptPerMarket은 시장별로 전량 매도하지 않고 남겨야 하는 종목 수.
+     */
+    public record HarvestConstraints(int maxPositionsSold, int minPositionsKeptPerMarket) {
+    }
+
+    public record HarvestSale(
+            String market,
+            String stockName,
+            long quantity,
+            long heldQuantity,
+            boolean sellAll,
+            BigDecimal averagePrice,
+            BigDecimal currentPrice,
+            BigDecimal realizedLoss
+    ) {
+    }
+
+    public record HarvestPlan(
+            List<HarvestSale> sales,
+            BigDecimal harvestedLoss,
+            TaxPreview taxPreviewAfterPlan,
+            HarvestConstraints constraints,
+            long searchNodes,
+            boolean optimal
+    ) {
+    }
+}
@@ -0,0 +1,288 @@
+package com.moon.taxadvisor.service;
+
+import com.moon.taxadvisor.config.IngestProperties;
+import com.moon.taxadvisor.domain.LedgerDelta;
+import com.moon.taxadvisor.domain.Market;
+import com.moon.taxadvisor.domain.UserDataChangedEvent;
+import com.moon.taxadvisor.repository.TaxLedgerRepository;
+import com.moon.taxadvisor.repository.TradeIngestRepository;
+import com.moon.taxadvisor.repository.TradeIngestRepository.PortfolioRow;
+import com.moon.taxadvisor.repository.TradeIngestRepository.RealizedGainRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * CSV/NDJSON 거래 파일을 스트리밍으로 읽어 portfolio/realized_gain에 JDBC 배치 INSERT로 적재한다.
+ * 한 배치를 커밋한 뒤에야 다음 줄을 읽으므로 DB가 느리면 소켓 버퍼가 차서 업로드 쪽이 자연히 늦춰진다.
+ * 배치마다 같은 트랜잭션에서 세금 원장을 증분 갱신하고, 커밋 후 사용자 데이터 변경 이벤트가 전달된다.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TradeIngestService {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final TradeIngestRepository tradeIngestRepository;
+    private final TaxLedgerRepository taxLedgerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JsonMapper jsonMapper;
+    private final IngestProperties ingestProperties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * CSV 컬럼 순서: user_id, market, stock_name, average_price, current_price, quantity
+     */
+    public IngestResult ingestPortfolios(InputStream input, IngestFormat format) {
+        return ingest(input, format, new IngestTarget<>(
+                "portfolio",
+                PortfolioRow.class,
+                6,
+                fields -> new PortfolioRow(
+                        fields.get(0),
+                        Market.valueOf(fields.get(1).toUpperCase(Locale.ROOT)),
+                        fields.get(2),
+                        new BigDecimal(fields.get(3)),
+                        new BigDecimal(fields.get(4)),
+                        Long.parseLong(fields.get(5))
+                ),
+                tradeIngestRepository::insertPortfolios,
+                PortfolioRow::userId,
+                row -> LedgerDelta.ofPosition(row.averagePrice(), row.currentPrice(), row.quantity())
+        ));
+    }
+
+    /**
+     * CSV 컬럼 순서: user_id, stock_name, gain_amount, realized_date(yyyy-MM-dd)
+     */
+    public IngestResult ingestRealizedGains(InputStream input, IngestFormat format) {
+        return ingest(input, format, new IngestTarget<>(
+                "realized_gain",
+                RealizedGainRow.class,
+                4,
+                fields -> new RealizedGainRow(
+                        fields.get(0),
+                        fields.get(1),
+                        new BigDecimal(fields.get(2)),
+                        LocalDate.parse(fields.get(3))
+                ),
+                tradeIngestRepository::insertRealizedGains,
+                RealizedGainRow::userId,
+                row -> LedgerDelta.ofRealizedGain(row.gainAmount())
+        ));
+    }
+
+    private <T> IngestResult ingest(InputStream input, IngestFormat format, IngestTarget<T> target) {
+        int batchSize = Math.max(1, ingestProperties.getBatchSize());
+        Counter rowCounter = Counter.builder("ingest.rows")
+                .description("Rows committed by the streaming ingest API")
+                .tag("table", target.table())
+                .register(meterRegistry);
+        Timer batchTimer = Timer.builder("ingest.batch.duration")
+                .tag("table", target.table())
+                .register(meterRegistry);
+
+        // NDJSON 행에 필수 필드가 빠지거나 null이면 DB 제약 오류가 아니라 입력 오류로 거절한다.
+        ObjectReader jsonReader = jsonMapper.readerFor(target.type()).with(
+                DeserializationFeature.FAIL_ON_MISSING_CREATOR_PROPERTIES,
+                DeserializationFeature.FAIL_ON_NULL_CREATOR_PROPERTIES
+        );
+
+        log.info("대량 적재 시작: table={}, format={}, batchSize={}", target.table(), format, batchSize);
+        long startedAt = System.nanoTime();
+        long committedRows = 0;
+        int committedBatches = 0;
+        long lineNumber = 0;
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(input, StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+            List<T> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && format == IngestFormat.CSV && isCsvHeader(line))) {
+                    continue;
+                }
+                batch.add(parseLine(line, lineNumber, format, target, jsonReader));
+                if (batch.size() >= batchSize) {
+                    batchTimer.record(() -> commitBatch(target, batch));
+                    rowCounter.increment(batch.size());
+                    committedRows += batch.size();
+                    committedBatches++;
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                batchTimer.record(() -> commitBatch(target, batch));
+                rowCounter.increment(batch.size());
+                committedRows += batch.size();
+                committedBatches++;
+            }
+        } catch (IOException exception) {
+            throw new IngestFailedException(target.table(), committedRows, false, new UncheckedIOException(exception));
+        } catch (InvalidLineException exception) {
+            log.warn("대량 적재 입력 오류: table={}, committedRows={}, reason={}",
+                    target.table(), committedRows, exception.getMessage());
+            throw new IngestFailedException(target.table(), committedRows, true, exception);
+        } catch (RuntimeException exception) {
+            log.error("대량 적재 실패: table={}, line={}, committedRows={}", target.table(), lineNumber, committedRows);
+            throw new IngestFailedException(target.table(), committedRows, false, exception);
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        IngestResult result = new IngestResult(
+                target.table(),
+                committedRows,
+                committedBatches,
+                elapsedMs,
+                committedRows * 1000.0 / elapsedMs
+        );
+        log.info(
+                "대량 적재 완료: table={}, rows={}, batches={}, elapsedMs={}, rowsPerSecond={}",
+                result.table(),
+                result.rows(),
+                result.batches(),
+                result.elapsedMs(),
+                Math.round(result.rowsPerSecond())
+        );
+        return result;
+    }
+
+    private <T> void commitBatch(IngestTarget<T> target, List<T> batch) {
+        Map<String, LedgerDelta> deltaByUser = new HashMap<>();
+        for (T row : batch) {
+            deltaByUser.merge(target.userIdOf().apply(row), target.contributionOf().apply(row), LedgerDelta::plus);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            target.writer().accept(batch);
+            deltaByUser.forEach(taxLedgerRepository::applyDelta);
+            deltaByUser.keySet().forEach(userId -> eventPublisher.publishEvent(new UserDataChangedEvent(userId)));
+        });
+    }
+
+    private <T> T parseLine(
+            String line,
+            long lineNumber,
+            IngestFormat format,
+            IngestTarget<T> target,
+            ObjectReader jsonReader
+    ) {
+        try {
+            if (format == IngestFormat.NDJSON) {
+                return jsonReader.readValue(line);
+            }
+            List<String> fields = splitCsv(line);
+            if (fields.size() != target.csvColumns()) {
+                throw new IllegalArgumentException(
+                        "expected " + target.csvColumns() + " columns but got " + fields.size());
+            }
+            return target.csvMapper().apply(fields);
+        } catch (RuntimeException exception) {
+            throw new InvalidLineException("line " + lineNumber + ": " + exception.getMessage(), exception);
+        }
+    }
+
+    private boolean isCsvHeader(String line) {
+        String normalized = line.trim().toLowerCase(Locale.ROOT);
+        return normalized.startsWith("user_id") || normalized.startsWith("userid");
+    }
+
+    /**
+     * 큰따옴표로 감싼 필드(쉼표 포함, "" 이스케이프)를 지원하는 최소 CSV 분리.
+     */
+    private List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (ch == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (ch == ',' && !quoted) {
+                fields.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(ch);
+            }
+        }
+        fields.add(current.toString().trim());
+        return fields;
+    }
+
+    public enum IngestFormat {
+        CSV,
+        NDJSON
+    }
+
+    public record IngestResult(String table, long rows, int batches, long elapsedMs, double rowsPerSecond) {
+    }
+
+    private record IngestTarget<T>(
+            String table,
+            Class<T> type,
+            int csvColumns,
+            Function<List<String>, T> csvMapper,
+            Consumer<List<T>> writer,
+            Function<T, String> userIdOf,
+            Function<T, LedgerDelta> contributionOf
+    ) {
+    }
+
+    /**
+     * 적재 중 실패. 이미 커밋된 배치는 유지되며 committedRows로 알려준다.
+     * invalidInput은 파싱/검증 오류(클라이언트 잘못)일 때만 true이고, DB나 입출력 오류는 false다.
+     */
+    @Getter
+    public static class IngestFailedException extends RuntimeException {
+
+        private final String table;
+        private final long committedRows;
+        private final boolean invalidInput;
+
+        public IngestFailedException(String table, long committedRows, boolean invalidInput, Throwable cause) {
+            super(cause.getMessage(), cause);
+            this.table = table;
+            this.committedRows = committedRows;
+            this.invalidInput = invalidInput;
+        }
+    }
+
+    private static class InvalidLineException extends IllegalArgumentException {
+
+        InvalidLineException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.moon.taxadvisor.service;
+
+import com.moon.taxadvisor.domain.Portfolio;
+import com.moon.taxadvisor.domain.RealizedGain;
+import java.util.List;
+
+/**
+ * 한 요청 동안 공유하는 사용자 보유 종목/확정 손익의 일관된 스냅샷.
+ */
+public record UserDataSnapshot(
+        String userId,
+        List<Portfolio> portfolios,
+        List<RealizedGain> realizedGains
+) {
+}
@@ -0,0 +1,27 @@
+package com.moon.taxadvisor.service;
+
+import com.moon.taxadvisor.domain.UserDataChangedEvent;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 사용자별 portfolio/realized_gain 데이터 버전. 변경이 커밋될 때마다 1씩 증가한다.
+ */
+@Component
+public class UserDataVersionTracker {
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long currentVersion(String userId) {
+        AtomicLong version = versions.get(userId);
+        return version == null ? 0 : version.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        versions.computeIfAbsent(event.userId(), ignored -> new AtomicLong()).incrementAndGet();
+    }
+}
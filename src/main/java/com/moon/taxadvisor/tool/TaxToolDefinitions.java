@@ -9,8 +9,15 @@ import org.springframework.stereotype.Component;
 @Component
 public class TaxToolDefinitions {
 
+    private static final String HARVEST_PLAN_DESCRIPTION =
+            "현재 세금 계산식(과세표준 * 22%) 기준으로 예상 세액을 최소화하는 손절 종목과 매도 수량, 손절 후 예상 세액을 반환한다.";
+
     public List<Tool> buildTools() {
-        return List.of(new Tool(List.of(getUserPortfolioDeclaration(), getRealizedGainsDeclaration())));
+        return List.of(new Tool(List.of(
+                getUserPortfolioDeclaration(),
+                getRealizedGainsDeclaration(),
+                getHarvestPlanDeclaration()
+        )));
     }
 
     public List<Map<String, Object>> asJsonSpec() {
@@ -24,6 +31,11 @@ public class TaxToolDefinitions {
                         "name", "getRealizedGains",
                         "description", "사용자의 확정 손익 내역과 합계를 조회한다.",
                         "parameters", buildCommonUserIdParameters()
+                ),
+                Map.of(
+                        "name", "getHarvestPlan",
+                        "description", HARVEST_PLAN_DESCRIPTION,
+                        "parameters", buildHarvestPlanParameters()
                 )
         );
     }
@@ -44,6 +56,35 @@ public class TaxToolDefinitions {
         );
     }
 
+    private FunctionDeclaration getHarvestPlanDeclaration() {
+        return new FunctionDeclaration(
+                "getHarvestPlan",
+                HARVEST_PLAN_DESCRIPTION,
+                buildHarvestPlanParameters()
+        );
+    }
+
+    private Map<String, Object> buildHarvestPlanParameters() {
+        return Map.of(
+                "type", "object",
+                "properties", Map.of(
+                        "userId", Map.of(
+                                "type", "string",
+                                "description", "조회 대상 사용자 ID. 이 서비스는 기본적으로 me를 사용한다."
+                        ),
+                        "maxPositionsSold", Map.of(
+                                "type", "integer",
+                                "description", "매도할 최대 종목 수. 생략하거나 0이면 제한 없음."
+                        ),
+                        "minPositionsKeptPerMarket", Map.of(
+                                "type", "integer",
+                                "description", "시장(KR/US)별로 전량 매도하지 않고 남겨야 하는 최소 종목 수."
+                        )
+                ),
+                "required", List.of("userId")
+        );
+    }
+
     private Map<String, Object> buildCommonUserIdParameters() {
         return Map.of(
                 "type", "object",
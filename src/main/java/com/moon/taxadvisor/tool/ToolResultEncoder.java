@@ -0,0 +1,154 @@
+package com.moon.taxadvisor.tool;
+
+import com.moon.taxadvisor.config.ToolResultProperties;
+import com.moon.taxadvisor.config.ToolResultProperties.Layout;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.JsonNodeFactory;
+import tools.jackson.databind.node.ObjectNode;
+
+/**
+ * 도구 실행 결과를 Gemini functionResponse 용으로 압축한다.
+ * 대화 전체가 반복마다 다시 전송되므로, 여기서 줄인 바이트는 반복 횟수만큼 절약된다.
+ * - 숫자: 500000.00 → 500000, 40.0000 → 40 처럼 불필요한 소수부를 없앤다.
+ * - null 필드는 보내지 않는다.
+ * - COLUMNAR: 필드 구성이 같은 객체 배열은 필드명을 한 번만 쓰는 {columns, rows} 표로 바꾼다.
+ * 압축 전 크기(raw)는 비교용 지표라 tool-result.raw-size-sample-rate 비율의 호출에서만 직렬화해 기록한다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ToolResultEncoder {
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private final JsonMapper jsonMapper;
+    private final ToolResultProperties toolResultProperties;
+    private final MeterRegistry meterRegistry;
+
+    public Map<String, Object> encode(String toolName, Object result) {
+        JsonNode raw = jsonMapper.valueToTree(result);
+        Layout layout = toolResultProperties.getLayout();
+        JsonNode encoded = compact(raw, layout == Layout.COLUMNAR);
+
+        int encodedBytes = jsonMapper.writeValueAsBytes(encoded).length;
+        recordSize(toolName, layout.name().toLowerCase(), encodedBytes);
+        if (sampleRawSize()) {
+            int rawBytes = jsonMapper.writeValueAsBytes(raw).length;
+            recordSize(toolName, "raw", rawBytes);
+            log.info("도구 결과 인코딩: name={}, layout={}, rawBytes={}, encodedBytes={}",
+                    toolName, layout, rawBytes, encodedBytes);
+        } else {
+            log.info("도구 결과 인코딩: name={}, layout={}, encodedBytes={}", toolName, layout, encodedBytes);
+        }
+
+        return Map.of("data", encoded);
+    }
+
+    private boolean sampleRawSize() {
+        double rate = toolResultProperties.getRawSizeSampleRate();
+        return rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private void recordSize(String toolName, String encoding, int bytes) {
+        DistributionSummary.builder("gemini.tool.result.bytes")
+                .description("Serialized size of a tool result sent back to Gemini")
+                .baseUnit("bytes")
+                .tag("tool", toolName)
+                .tag("encoding", encoding)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    private JsonNode compact(JsonNode node, boolean columnar) {
+        if (node.isNumber()) {
+            return compactNumber(node);
+        }
+        if (node.isObject()) {
+            ObjectNode compacted = NODES.objectNode();
+            for (Map.Entry<String, JsonNode> property : node.properties()) {
+                if (!property.getValue().isNull()) {
+                    compacted.set(property.getKey(), compact(property.getValue(), columnar));
+                }
+            }
+            return compacted;
+        }
+        if (node.isArray()) {
+            List<String> columns = columnar ? commonColumns(node) : null;
+            if (columns != null) {
+                return toTable(node, columns, columnar);
+            }
+            ArrayNode compacted = NODES.arrayNode();
+            for (JsonNode element : node) {
+                compacted.add(compact(element, columnar));
+            }
+            return compacted;
+        }
+        return node;
+    }
+
+    private JsonNode compactNumber(JsonNode node) {
+        if (node.isIntegralNumber()) {
+            return node;
+        }
+        BigDecimal value = node.decimalValue().stripTrailingZeros();
+        if (value.scale() <= 0) {
+            try {
+                return NODES.numberNode(value.longValueExact());
+            } catch (ArithmeticException ignored) {
+                return NODES.numberNode(value.setScale(0));
+            }
+        }
+        return NODES.numberNode(value);
+    }
+
+    /**
+     * 원소가 2개 이상이고 모두 같은 필드를 같은 순서로 가진 객체이면 그 필드 목록, 아니면 null.
+     */
+    private List<String> commonColumns(JsonNode array) {
+        if (array.size() < 2) {
+            return null;
+        }
+        List<String> columns = null;
+        for (JsonNode element : array) {
+            if (!element.isObject()) {
+                return null;
+            }
+            List<String> names = new ArrayList<>(element.size());
+            for (Map.Entry<String, JsonNode> property : element.properties()) {
+                names.add(property.getKey());
+            }
+            if (columns == null) {
+                columns = names;
+            } else if (!columns.equals(names)) {
+                return null;
+            }
+        }
+        return columns;
+    }
+
+    private JsonNode toTable(JsonNode array, List<String> columns, boolean columnar) {
+        ObjectNode table = NODES.objectNode();
+        ArrayNode header = table.putArray("columns");
+        columns.forEach(header::add);
+        ArrayNode rows = table.putArray("rows");
+        for (JsonNode element : array) {
+            ArrayNode row = rows.addArray();
+            for (String column : columns) {
+                row.add(compact(element.get(column), columnar));
+            }
+        }
+        return table;
+    }
+}
@@ -15,3 +15,18 @@ CREATE TABLE realized_gain (
     gain_amount DECIMAL(19, 2) NOT NULL,
     realized_date DATE NOT NULL
 );
+
+CREATE INDEX idx_portfolio_user_stock ON portfolio (user_id, stock_name);
+
+CREATE INDEX idx_portfolio_stock_user ON portfolio (stock_name, user_id);
+
+CREATE INDEX idx_realized_gain_user_date ON realized_gain (user_id, realized_date, gain_amount);
+
+CREATE TABLE tax_ledger (
+    user_id VARCHAR(50) PRIMARY KEY,
+    realized_total DECIMAL(19, 2) NOT NULL,
+    unrealized_loss DECIMAL(19, 2) NOT NULL,
+    cost_basis DECIMAL(19, 2) NOT NULL,
+    market_value DECIMAL(19, 2) NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,132 @@
+package com.moon.taxadvisor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.moon.taxadvisor.config.ExecutionConfig;
+import com.moon.taxadvisor.config.ExecutionProperties;
+import com.moon.taxadvisor.config.VirtualThreadPinningMonitor;
+import com.moon.taxadvisor.domain.Portfolio;
+import com.moon.taxadvisor.repository.PortfolioRepository;
+import com.moon.taxadvisor.repository.RealizedGainRepository;
+import com.moon.taxadvisor.service.LastPriceCache;
+import com.moon.taxadvisor.service.PortfolioQueryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * ./gradlew loadTest 로 실행한다.
+ * ExecutionConfig의 blockingScheduler를 두 실행 모드로 만들고, 지연을 흉내 낸 리포지토리를 PortfolioQueryService로 호출해
+ * 동시에 실행되는 조회 수와 VirtualThreadPinningMonitor가 남기는 pinning 기록을 확인한다.
+ */
+@Tag("load")
+class ThreadModeLoadTest {
+
+    private static final int REQUESTS = Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE * 3;
+    private static final Duration QUERY_LATENCY = Duration.ofMillis(100);
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final String OPERATION = "portfolioRepository.findByUserId";
+
+    @Test
+    void virtualBlockingSchedulerRunsMoreRepositoryCallsConcurrently() {
+        int platformMaxInFlight = maxInFlight(false);
+        int virtualMaxInFlight = maxInFlight(true);
+
+        assertThat(platformMaxInFlight).isLessThanOrEqualTo(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE);
+        assertThat(virtualMaxInFlight).isGreaterThan(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE);
+    }
+
+    @Test
+    void pinningInsideRepositoryCallIsAttributedToTheObservedOperation() throws Exception {
+        Object lock = new Object();
+        // JDK 21에서는 synchronized 안에서 잠들면 가상 스레드가 캐리어 스레드에 고정된다.
+        Answer<List<Portfolio>> pinningQuery = invocation -> {
+            synchronized (lock) {
+                Thread.sleep(QUERY_LATENCY);
+            }
+            return List.of();
+        };
+
+        ExecutionProperties executionProperties = new ExecutionProperties();
+        executionProperties.setPinningThresholdMs(10);
+
+        VirtualThreadPinningMonitor platformMonitor = new VirtualThreadPinningMonitor(false, executionProperties);
+        runQueries(false, platformMonitor, pinningQuery, 5);
+        assertThat(platformMonitor.pinnedCounts()).isEmpty();
+
+        VirtualThreadPinningMonitor virtualMonitor = new VirtualThreadPinningMonitor(true, executionProperties);
+        virtualMonitor.afterPropertiesSet();
+        try {
+            runQueries(true, virtualMonitor, pinningQuery, 5);
+            // JFR 이벤트는 비동기로 전달되므로 잠시 기다린다.
+            long deadline = System.nanoTime() + TIMEOUT.toNanos();
+            while (!virtualMonitor.pinnedCounts().containsKey(OPERATION) && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+            assertThat(virtualMonitor.pinnedCounts()).containsKey(OPERATION);
+            assertThat(virtualMonitor.pinnedCounts().get(OPERATION)).isPositive();
+        } finally {
+            virtualMonitor.destroy();
+        }
+    }
+
+    private int maxInFlight(boolean virtualThreads) {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Answer<List<Portfolio>> slowQuery = invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(QUERY_LATENCY);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return List.of();
+        };
+
+        ExecutionProperties executionProperties = new ExecutionProperties();
+        executionProperties.setPinningDiagnosticsEnabled(false);
+        runQueries(virtualThreads, new VirtualThreadPinningMonitor(virtualThreads, executionProperties), slowQuery, REQUESTS);
+        return maxInFlight.get();
+    }
+
+    private void runQueries(
+            boolean virtualThreads,
+            VirtualThreadPinningMonitor pinningMonitor,
+            Answer<List<Portfolio>> query,
+            int requests
+    ) {
+        PortfolioRepository portfolioRepository = mock(PortfolioRepository.class);
+        when(portfolioRepository.findByUserId(anyString())).thenAnswer(query);
+        PortfolioQueryService portfolioQueryService = new PortfolioQueryService(
+                portfolioRepository,
+                mock(RealizedGainRepository.class),
+                pinningMonitor,
+                new LastPriceCache(new SimpleMeterRegistry()),
+                new SimpleMeterRegistry()
+        );
+
+        Scheduler blockingScheduler = new ExecutionConfig().blockingScheduler(virtualThreads);
+        try {
+            Flux.range(0, requests)
+                    .flatMap(
+                            ignored -> Mono.fromCallable(() -> portfolioQueryService.findPortfolioEntities("me"))
+                                    .subscribeOn(blockingScheduler),
+                            requests
+                    )
+                    .blockLast(TIMEOUT);
+        } finally {
+            blockingScheduler.dispose();
+        }
+    }
+}
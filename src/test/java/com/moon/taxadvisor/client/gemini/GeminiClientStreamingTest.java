@@ -0,0 +1,120 @@
+package com.moon.taxadvisor.client.gemini;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.moon.taxadvisor.client.gemini.GeminiModels.Content;
+import com.moon.taxadvisor.client.resilience.RetryBudget;
+import com.moon.taxadvisor.client.resilience.UpstreamGuard;
+import com.moon.taxadvisor.config.GeminiProperties;
+import com.moon.taxadvisor.config.ResilienceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+class GeminiClientStreamingTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private DisposableServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    @Test
+    void streamContent_decodesSseChunksAsTheyArrive() {
+        AtomicReference<String> requestedUri = new AtomicReference<>();
+        startStubServer("text/event-stream", requestedUri, parts -> parts.map(json -> "data: " + json + "\r\n\r\n"));
+
+        List<Content> chunks = newClient().streamContent(
+                        List.of(GeminiModels.userText("절세 전략")),
+                        List.of(),
+                        "system"
+                )
+                .collectList()
+                .block(TIMEOUT);
+
+        assertThat(requestedUri.get()).contains(":streamGenerateContent").contains("alt=sse");
+        assertThat(chunks).hasSize(3);
+        assertThat(chunks).flatExtracting(Content::texts).containsExactly("손실 ", "실현으로 ", "절세");
+        assertThat(GeminiModels.mergeStreamedChunks(chunks).joinedText()).isEqualTo("손실 실현으로 절세");
+    }
+
+    @Test
+    void streamContent_decodesChunkedJsonArray() {
+        startStubServer("application/json", new AtomicReference<>(), parts -> parts
+                .collectList()
+                .flatMapMany(jsons -> {
+                    String body = "[" + String.join(",\r\n", jsons) + "]";
+                    int middle = body.length() / 2;
+                    return Flux.just(body.substring(0, middle), body.substring(middle))
+                            .delayElements(Duration.ofMillis(20));
+                }));
+
+        List<String> texts = newClient().streamContent(
+                        List.of(GeminiModels.userText("절세 전략")),
+                        List.of(),
+                        "system"
+                )
+                .concatMapIterable(Content::texts)
+                .collectList()
+                .block(TIMEOUT);
+
+        assertThat(texts).containsExactly("손실 ", "실현으로 ", "절세");
+    }
+
+    private void startStubServer(
+            String contentType,
+            AtomicReference<String> requestedUri,
+            Function<Flux<String>, Flux<String>> framing
+    ) {
+        Flux<String> parts = Flux.just("손실 ", "실현으로 ", "절세")
+                .delayElements(Duration.ofMillis(20))
+                .map(text -> """
+                        {"candidates":[{"content":{"role":"model","parts":[{"text":"%s"}]}}]}""".formatted(text));
+
+        server = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> {
+                    requestedUri.set(request.uri());
+                    return request.receive()
+                            .aggregate()
+                            .asString()
+                            .then(response.header("Content-Type", contentType)
+                                    .sendString(framing.apply(parts))
+                                    .then());
+                })
+                .bindNow();
+    }
+
+    private GeminiClient newClient() {
+        GeminiProperties properties = new GeminiProperties();
+        properties.setApiKey("test-key");
+        properties.setModel("test-model");
+        ResilienceProperties resilienceProperties = new ResilienceProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UpstreamGuard upstreamGuard = new UpstreamGuard(
+                "gemini",
+                resilienceProperties,
+                resilienceProperties.getGeminiLatencyThresholdMs(),
+                new RetryBudget(resilienceProperties, meterRegistry),
+                meterRegistry
+        );
+        return new GeminiClient(
+                WebClient.builder().baseUrl("http://localhost:" + server.port()).build(),
+                properties,
+                upstreamGuard
+        );
+    }
+}
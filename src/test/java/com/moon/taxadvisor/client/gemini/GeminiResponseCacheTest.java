@@ -0,0 +1,85 @@
+package com.moon.taxadvisor.client.gemini;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.moon.taxadvisor.client.gemini.GeminiModels.Content;
+import com.moon.taxadvisor.client.gemini.GeminiModels.GenerateContentRequest;
+import com.moon.taxadvisor.client.gemini.GeminiModels.GenerateContentResponse;
+import com.moon.taxadvisor.config.GeminiProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class GeminiResponseCacheTest {
+
+    private static final List<Content> CONVERSATION = List.of(GeminiModels.userText("절세 전략"));
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final AtomicInteger upstreamCancels = new AtomicInteger();
+    private Sinks.One<GenerateContentResponse> upstream;
+    private GeminiResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        GeminiClient geminiClient = mock(GeminiClient.class);
+        when(geminiClient.buildRequest(anyList(), anyList(), anyString())).thenAnswer(invocation ->
+                new GenerateContentRequest(invocation.getArgument(0), null, invocation.getArgument(1), null));
+        when(geminiClient.generateContent(any(GenerateContentRequest.class))).thenAnswer(invocation -> {
+            upstreamCalls.incrementAndGet();
+            upstream = Sinks.one();
+            return upstream.asMono().doOnCancel(upstreamCancels::incrementAndGet);
+        });
+        cache = new GeminiResponseCache(geminiClient, new GeminiProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void loadKeepsRunningWhileAnotherCallerIsStillWaiting() {
+        Disposable first = request().subscribe();
+        Mono<GenerateContentResponse> second = request();
+        GenerateContentResponse response = new GenerateContentResponse(List.of());
+
+        Disposable secondSubscription = second.subscribe();
+        first.dispose();
+        assertThat(upstreamCancels).hasValue(0);
+        secondSubscription.dispose();
+
+        // 남은 구독자가 없으므로 업스트림 호출이 취소되고, 다음 요청은 새로 부른다.
+        assertThat(upstreamCancels).hasValue(1);
+        Mono<GenerateContentResponse> retry = request();
+        Disposable retrySubscription = retry.subscribe();
+        assertThat(upstreamCalls).hasValue(2);
+        upstream.tryEmitValue(response);
+        retrySubscription.dispose();
+
+        assertThat(request().block(Duration.ofSeconds(5))).isSameAs(response);
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void completedHitIsServedEvenAfterEarlierCallerCancelled() {
+        GenerateContentResponse response = new GenerateContentResponse(List.of());
+        Mono<GenerateContentResponse> first = request();
+        Disposable subscription = first.subscribe();
+        upstream.tryEmitValue(response);
+        subscription.dispose();
+
+        assertThat(upstreamCancels).hasValue(0);
+        assertThat(request().block(Duration.ofSeconds(5))).isSameAs(response);
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    private Mono<GenerateContentResponse> request() {
+        return cache.generateContent("me", CONVERSATION, List.of(), "system");
+    }
+}
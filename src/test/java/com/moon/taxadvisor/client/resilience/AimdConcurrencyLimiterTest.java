@@ -0,0 +1,80 @@
+package com.moon.taxadvisor.client.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.moon.taxadvisor.config.ResilienceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AimdConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(
+            "test", properties(), 100, new SimpleMeterRegistry());
+
+    @Test
+    void busyFastCallsRaiseTheLimitUpToMax() {
+        acquire(3);
+
+        limiter.onSample(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(FAST, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void idleFastCallsDoNotRaiseTheLimit() {
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(FAST, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void slowOrDroppedCallsCutTheLimitDownToMin() {
+        limiter.onSample(SLOW, false);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        limiter.onSample(FAST, true);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void callsBeyondTheLimitAreRejectedUntilReleased() {
+        acquire(4);
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release();
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void streamSamplesAdjustTheLimitButNotTheLatencyEstimate() {
+        limiter.onStreamSample(SLOW, false);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getLatencyEstimateNanos()).isZero();
+
+        limiter.onSample(FAST, false);
+        assertThat(limiter.getLatencyEstimateNanos()).isEqualTo(FAST);
+    }
+
+    private void acquire(int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+    }
+
+    private static ResilienceProperties properties() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.setLimiterInitialLimit(4);
+        properties.setLimiterMinLimit(2);
+        properties.setLimiterMaxLimit(5);
+        properties.setLimiterBackoffRatio(0.5);
+        return properties;
+    }
+}
@@ -0,0 +1,102 @@
+package com.moon.taxadvisor.client.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.moon.taxadvisor.client.resilience.CircuitBreaker.State;
+import com.moon.taxadvisor.config.ResilienceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensWhenFailureRateReachesThresholdAndRejectsWhileOpen() {
+        CircuitBreaker breaker = breaker(60_000);
+
+        recordOutcomes(breaker, false, false, true);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        recordOutcomes(breaker, true);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.isRejectingCalls()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isEqualTo(CircuitBreaker.REJECTED);
+    }
+
+    @Test
+    void halfOpenAllowsLimitedTrialsAndClosesWhenAllSucceed() {
+        CircuitBreaker breaker = openBreaker();
+
+        long first = breaker.tryAcquirePermission();
+        long second = breaker.tryAcquirePermission();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.tryAcquirePermission()).isEqualTo(CircuitBreaker.REJECTED);
+
+        breaker.onSuccess(first);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        breaker.onSuccess(second);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void failedTrialReopens() {
+        CircuitBreaker breaker = openBreaker();
+
+        long trial = breaker.tryAcquirePermission();
+        breaker.onFailure(trial);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void outcomesOfCallsPermittedBeforeAStateChangeAreIgnored() {
+        CircuitBreaker breaker = breaker(0);
+        long stale = breaker.tryAcquirePermission();
+        recordOutcomes(breaker, true, true, true, true);
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+
+        long trial = breaker.tryAcquirePermission();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+
+        // 열리기 전에 나간 느린 호출은 시험 중인 차단기를 다시 열거나 닫지 못한다.
+        breaker.onFailure(stale);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        breaker.onSuccess(stale);
+        breaker.onSuccess(stale);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+
+        breaker.onIgnored(trial);
+        long retrial = breaker.tryAcquirePermission();
+        long secondTrial = breaker.tryAcquirePermission();
+        breaker.onSuccess(retrial);
+        breaker.onSuccess(secondTrial);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    private static CircuitBreaker openBreaker() {
+        CircuitBreaker breaker = breaker(0);
+        recordOutcomes(breaker, true, true, true, true);
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        return breaker;
+    }
+
+    private static void recordOutcomes(CircuitBreaker breaker, boolean... failures) {
+        for (boolean failure : failures) {
+            long permit = breaker.tryAcquirePermission();
+            if (failure) {
+                breaker.onFailure(permit);
+            } else {
+                breaker.onSuccess(permit);
+            }
+        }
+    }
+
+    private static CircuitBreaker breaker(long openDurationMs) {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.setCircuitWindowSize(4);
+        properties.setCircuitMinimumCalls(4);
+        properties.setCircuitFailureRatePercent(50);
+        properties.setCircuitHalfOpenCalls(2);
+        properties.setCircuitOpenDurationMs(openDurationMs);
+        return new CircuitBreaker("test", properties, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,45 @@
+package com.moon.taxadvisor.client.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.moon.taxadvisor.config.ResilienceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+class RetryBudgetTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void retriesStopWhenTokensRunOutAndRefillWithRequests() {
+        RetryBudget budget = budget(0.5, 2);
+
+        assertThat(budget.tryWithdraw("test")).isTrue();
+        assertThat(budget.tryWithdraw("test")).isTrue();
+        assertThat(budget.tryWithdraw("test")).isFalse();
+
+        budget.onRequest();
+        budget.onRequest();
+        assertThat(budget.tryWithdraw("test")).isTrue();
+        assertThat(budget.tryWithdraw("test")).isFalse();
+
+        assertThat(meterRegistry.find("upstream.retries").tag("result", "denied").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void tokensAreCappedAtMax() {
+        RetryBudget budget = budget(0.5, 2);
+        for (int i = 0; i < 10; i++) {
+            budget.onRequest();
+        }
+
+        assertThat(budget.availableTokens()).isEqualTo(2);
+    }
+
+    private RetryBudget budget(double ratio, int maxTokens) {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.setRetryBudgetRatio(ratio);
+        properties.setRetryBudgetMaxTokens(maxTokens);
+        return new RetryBudget(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,88 @@
+package com.moon.taxadvisor.client.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.moon.taxadvisor.config.ResilienceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class UpstreamGuardTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Test
+    void serverErrorsAreRetriedUpToMaxAttempts() {
+        UpstreamGuard guard = guard(10);
+
+        assertThatThrownBy(() -> guard.execute(() -> failWith(500)).block(TIMEOUT))
+                .isInstanceOf(UpstreamStatusException.class);
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        UpstreamGuard guard = guard(10);
+
+        assertThatThrownBy(() -> guard.execute(() -> failWith(400)).block(TIMEOUT))
+                .isInstanceOf(UpstreamStatusException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void retriesStopWhenTheSharedBudgetIsExhausted() {
+        UpstreamGuard guard = guard(1);
+
+        assertThatThrownBy(() -> guard.execute(() -> failWith(503)).block(TIMEOUT))
+                .isInstanceOf(UpstreamStatusException.class);
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    void streamsAreJudgedByTimeToFirstChunkAndStayOutOfTheLatencyEstimate() {
+        UpstreamGuard guard = guard(10);
+        Flux<Integer> slowTail = Flux.concat(Mono.just(1), Mono.delay(Duration.ofMillis(100)).thenReturn(2));
+
+        assertThat(guard.executeMany(() -> slowTail).collectList().block(TIMEOUT)).containsExactly(1, 2);
+        assertThat(limit()).isEqualTo(20);
+        assertThat(guard.latencyEstimateMs()).isZero();
+
+        guard.execute(() -> Mono.delay(Duration.ofMillis(100)).thenReturn(1)).block(TIMEOUT);
+        assertThat(limit()).isEqualTo(18);
+        assertThat(guard.latencyEstimateMs()).isGreaterThanOrEqualTo(100);
+    }
+
+    private Mono<Integer> failWith(int status) {
+        return Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new UpstreamStatusException(status, "status " + status));
+        });
+    }
+
+    private double limit() {
+        return meterRegistry.find("upstream.limiter.limit").gauge().value();
+    }
+
+    private UpstreamGuard guard(int retryBudgetMaxTokens) {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.setRetryMaxAttempts(2);
+        properties.setRetryBaseBackoffMs(1);
+        properties.setRetryMaxBackoffMs(2);
+        properties.setRetryBudgetRatio(0);
+        properties.setRetryBudgetMaxTokens(retryBudgetMaxTokens);
+        return new UpstreamGuard(
+                "test",
+                properties,
+                50,
+                new RetryBudget(properties, meterRegistry),
+                meterRegistry
+        );
+    }
+}
@@ -0,0 +1,152 @@
+package com.moon.taxadvisor.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import com.moon.taxadvisor.config.AdmissionProperties;
+import com.moon.taxadvisor.service.AdviceAdmissionService.AdmissionRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+class AdviceAdmissionServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final AdmissionProperties admissionProperties = new AdmissionProperties();
+    private final List<String> started = new CopyOnWriteArrayList<>();
+
+    AdviceAdmissionServiceTest() {
+        admissionProperties.setMaxConcurrent(1);
+        admissionProperties.setUserRatePerSecond(1_000);
+        admissionProperties.setUserBurst(1_000);
+    }
+
+    @Test
+    void freedSlotsGoToWaitingUsersInTurn() {
+        AdviceAdmissionService service = service();
+        Sinks.Empty<Void> holder = hold(service);
+
+        service.admit("a", () -> record("a1")).subscribe();
+        service.admit("a", () -> record("a2")).subscribe();
+        service.admit("a", () -> record("a3")).subscribe();
+        service.admit("b", () -> record("b1")).subscribe();
+        assertThat(service.queuedCount()).isEqualTo(4);
+
+        holder.tryEmitEmpty();
+
+        // a가 먼저 세 건을 넣었어도 b의 요청은 a의 두 번째 요청보다 먼저 실행된다.
+        assertThat(started).containsExactly("a1", "b1", "a2", "a3");
+        assertThat(service.queuedCount()).isZero();
+        assertThat(service.runningCount()).isZero();
+    }
+
+    @Test
+    void fullUserQueueAndFullQueueAreRejected() {
+        admissionProperties.setMaxQueueSize(2);
+        admissionProperties.setMaxQueuedPerUser(1);
+        AdviceAdmissionService service = service();
+        hold(service);
+
+        service.admit("a", () -> record("a1")).subscribe();
+        assertThat(rejectionReason(service, "a")).isEqualTo("user-queue-full");
+        service.admit("b", () -> record("b1")).subscribe();
+        assertThat(rejectionReason(service, "c")).isEqualTo("queue-full");
+
+        assertThat(service.queuedCount()).isEqualTo(2);
+        assertThat(started).isEmpty();
+    }
+
+    @Test
+    void waiterThatTimesOutLeavesTheQueue() {
+        admissionProperties.setMaxQueueWaitMs(50);
+        AdviceAdmissionService service = service();
+        Sinks.Empty<Void> holder = hold(service);
+
+        assertThat(rejectionReason(service, "a")).isEqualTo("queue-timeout");
+        await(() -> service.queuedCount() == 0);
+        assertThat(service.queuedCount()).isZero();
+
+        holder.tryEmitEmpty();
+        assertThat(service.runningCount()).isZero();
+        assertThat(service.admit("a", () -> record("a1")).block(TIMEOUT)).isEqualTo("a1");
+    }
+
+    @Test
+    void grantRacingQueueTimeoutNeverLeaksASlot() {
+        admissionProperties.setMaxQueueWaitMs(1);
+        AdviceAdmissionService service = service();
+
+        for (int i = 0; i < 200; i++) {
+            Mono<Object> holder = service.admit("h", () -> Mono.delay(Duration.ofMillis(1)).cast(Object.class));
+            Mono<Object> waiter = service.admit("w", () -> Mono.<Object>just("w"))
+                    .onErrorResume(AdmissionRejectedException.class, ignored -> Mono.empty());
+            Mono.when(holder, waiter).block(TIMEOUT);
+            await(() -> service.runningCount() == 0 && service.queuedCount() == 0);
+        }
+
+        assertThat(service.runningCount()).isZero();
+        assertThat(service.queuedCount()).isZero();
+    }
+
+    @Test
+    void streamHoldsItsSlotUntilItCompletes() {
+        AdviceAdmissionService service = service();
+        Sinks.Many<String> chunks = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> received = new CopyOnWriteArrayList<>();
+
+        service.admitMany("a", chunks::asFlux).subscribe(received::add);
+        chunks.tryEmitNext("chunk");
+        service.admit("b", () -> record("b1")).subscribe();
+
+        assertThat(received).containsExactly("chunk");
+        assertThat(service.runningCount()).isEqualTo(1);
+        assertThat(service.queuedCount()).isEqualTo(1);
+        assertThat(started).isEmpty();
+
+        chunks.tryEmitComplete();
+        assertThat(started).containsExactly("b1");
+    }
+
+    private AdviceAdmissionService service() {
+        return new AdviceAdmissionService(admissionProperties, new SimpleMeterRegistry(), Schedulers.immediate());
+    }
+
+    private Sinks.Empty<Void> hold(AdviceAdmissionService service) {
+        Sinks.Empty<Void> holder = Sinks.empty();
+        service.admit("holder", holder::asMono).subscribe();
+        assertThat(service.runningCount()).isEqualTo(1);
+        return holder;
+    }
+
+    private Mono<String> record(String name) {
+        return Mono.fromSupplier(() -> {
+            started.add(name);
+            return name;
+        });
+    }
+
+    private static String rejectionReason(AdviceAdmissionService service, String userId) {
+        AdmissionRejectedException rejected = catchThrowableOfType(
+                AdmissionRejectedException.class,
+                () -> service.admit(userId, () -> Mono.just(userId)).block(TIMEOUT)
+        );
+        return rejected.getReason();
+    }
+
+    /**
+     * 자리는 doFinally에서 돌려주므로 block이 끝난 직후에는 아직 반영되지 않았을 수 있다.
+     */
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
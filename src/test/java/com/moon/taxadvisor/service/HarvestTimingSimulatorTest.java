@@ -0,0 +1,86 @@
+package com.moon.taxadvisor.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.moon.taxadvisor.config.SimulationProperties;
+import com.moon.taxadvisor.domain.Money;
+import com.moon.taxadvisor.domain.Portfolio;
+import com.moon.taxadvisor.domain.PositionBook;
+import com.moon.taxadvisor.domain.RealizedGain;
+import com.moon.taxadvisor.service.HarvestTimingSimulator.SimulationRequest;
+import com.moon.taxadvisor.service.HarvestTimingSimulator.SimulationResult;
+import com.moon.taxadvisor.service.HarvestTimingSimulator.StrategyOutcome;
+import com.moon.taxadvisor.service.TaxCalculationService.TaxPreview;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HarvestTimingSimulatorTest {
+
+    private static final BigDecimal ONE_WON = BigDecimal.ONE;
+
+    private final TaxCalculationService taxCalculationService = new TaxCalculationService(null, null, null);
+    private HarvestTimingSimulator simulator;
+
+    @BeforeEach
+    void setUp() {
+        SimulationProperties simulationProperties = new SimulationProperties();
+        simulationProperties.setPathsPerTask(64);
+        simulationProperties.setParallelism(4);
+        simulator = new HarvestTimingSimulator(null, simulationProperties, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        simulator.shutdown();
+    }
+
+    @Test
+    void sameSeedGivesSameOutcomes() {
+        UserDataSnapshot snapshot = snapshot(TaxCalculationFixtures.randomPortfolios(20, 7), "5000000");
+        SimulationRequest request = new SimulationRequest(2_000, 30.0, 5.0, 42L);
+
+        SimulationResult first = simulator.simulate(snapshot, request);
+        SimulationResult second = simulator.simulate(snapshot, request);
+
+        assertThat(second.strategies()).isEqualTo(first.strategies());
+        assertThat(second.probabilityDecemberBeatsNow()).isEqualTo(first.probabilityDecemberBeatsNow());
+    }
+
+    @Test
+    void zeroVolatilityAndDriftReproducesTaxPreview() {
+        List<Portfolio> portfolios = TaxCalculationFixtures.randomPortfolios(20, 11);
+        BigDecimal realizedGain = new BigDecimal("50000000");
+        TaxPreview preview = taxCalculationService.calculatePreview(
+                PositionBook.of(portfolios), Money.fromBigDecimal(realizedGain));
+
+        SimulationResult result = simulator.simulate(
+                snapshot(portfolios, realizedGain.toPlainString()),
+                new SimulationRequest(500, 0.0, 0.0, 1L)
+        );
+
+        StrategyOutcome now = result.strategies().get("now");
+        StrategyOutcome december = result.strategies().get("december");
+        StrategyOutcome hold = result.strategies().get("hold");
+        // 가격이 움직이지 않으므로 손절 시점과 관계없이 미리보기와 같은 세액이 나오고, 모든 경로가 같다.
+        assertThat(now.meanTax()).isCloseTo(preview.estimatedTaxAfterHarvest(), within(ONE_WON));
+        assertThat(december.meanTax()).isCloseTo(preview.estimatedTaxAfterHarvest(), within(ONE_WON));
+        assertThat(now.afterTaxWealth().p5()).isEqualTo(now.afterTaxWealth().p95());
+        // 보유 전략의 세액은 확정 수익의 22%
+        assertThat(hold.meanTax()).isCloseTo(preview.estimatedTaxBeforeHarvest(), within(ONE_WON));
+        assertThat(hold.meanTax()).isCloseTo(new BigDecimal("11000000"), within(ONE_WON));
+    }
+
+    private static UserDataSnapshot snapshot(List<Portfolio> portfolios, String realizedGainAmount) {
+        RealizedGain gain = new RealizedGain();
+        gain.setUserId("bench");
+        gain.setStockName("REALIZED");
+        gain.setGainAmount(new BigDecimal(realizedGainAmount));
+        gain.setRealizedDate(LocalDate.of(2025, 1, 2));
+        return new UserDataSnapshot("bench", portfolios, List.of(gain));
+    }
+}
@@ -0,0 +1,108 @@
+package com.moon.taxadvisor.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.moon.taxadvisor.client.pricefeed.PriceFeedSource;
+import com.moon.taxadvisor.client.pricefeed.PriceTick;
+import com.moon.taxadvisor.config.PriceFeedProperties;
+import com.moon.taxadvisor.repository.PriceUpdateRepository;
+import com.moon.taxadvisor.repository.TaxLedgerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class PriceFeedServiceTest {
+
+    private static final BigDecimal STORED_PRICE = new BigDecimal("70000");
+
+    private final PriceUpdateRepository priceUpdateRepository = mock(PriceUpdateRepository.class);
+    private final TaxLedgerRepository taxLedgerRepository = mock(TaxLedgerRepository.class);
+    private final FakeTransactionManager transactionManager = new FakeTransactionManager();
+    private final LastPriceCache lastPriceCache = new LastPriceCache(new SimpleMeterRegistry());
+    private final PriceFeedService priceFeedService = new PriceFeedService(
+            mock(PriceFeedSource.class),
+            priceUpdateRepository,
+            taxLedgerRepository,
+            lastPriceCache,
+            new TransactionTemplate(transactionManager),
+            new PriceFeedProperties(),
+            new SimpleMeterRegistry()
+    );
+
+    @Test
+    void committedFlushUpdatesTheCache() {
+        priceFeedService.onTick(tick("SAMSUNG", "71000"));
+        priceFeedService.flush();
+
+        assertThat(lastPriceCache.priceOrDefault("SAMSUNG", STORED_PRICE)).isEqualByComparingTo("71000");
+    }
+
+    @Test
+    void failedUpdateLeavesTheCacheUntouched() {
+        when(priceUpdateRepository.updateCurrentPrices(anyMap()))
+                .thenThrow(new DataAccessResourceFailureException("db down"));
+
+        priceFeedService.onTick(tick("SAMSUNG", "71000"));
+        priceFeedService.flush();
+
+        assertThat(lastPriceCache.priceOf("SAMSUNG")).isEmpty();
+        assertThat(transactionManager.rolledBack).isTrue();
+    }
+
+    @Test
+    void failedCommitLeavesTheCacheUntouched() {
+        priceFeedService.onTick(tick("SAMSUNG", "71000"));
+        priceFeedService.flush();
+        transactionManager.failCommit = true;
+
+        // 커밋이 실패하면 afterCommit이 불리지 않아 캐시는 마지막으로 커밋된 가격을 유지한다.
+        priceFeedService.onTick(tick("SAMSUNG", "72000"));
+        priceFeedService.flush();
+
+        assertThat(lastPriceCache.priceOrDefault("SAMSUNG", STORED_PRICE)).isEqualByComparingTo("71000");
+    }
+
+    private static PriceTick tick(String stockName, String price) {
+        return new PriceTick(stockName, new BigDecimal(price), Instant.now());
+    }
+
+    /**
+     * 트랜잭션 동기화를 실제로 돌리는 최소 구현. mock 매니저로는 afterCommit 콜백이 실행되지 않는다.
+     */
+    private static final class FakeTransactionManager extends AbstractPlatformTransactionManager {
+
+        private boolean failCommit;
+        private boolean rolledBack;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            if (failCommit) {
+                throw new TransactionSystemException("commit failed");
+            }
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rolledBack = true;
+        }
+    }
+}
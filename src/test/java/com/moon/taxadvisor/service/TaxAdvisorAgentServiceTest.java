@@ -0,0 +1,277 @@
+package com.moon.taxadvisor.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.moon.taxadvisor.client.gemini.GeminiClient;
+import com.moon.taxadvisor.client.gemini.GeminiModels;
+import com.moon.taxadvisor.client.gemini.GeminiModels.Candidate;
+import com.moon.taxadvisor.client.gemini.GeminiModels.Content;
+import com.moon.taxadvisor.client.gemini.GeminiModels.FunctionCall;
+import com.moon.taxadvisor.client.gemini.GeminiModels.GenerateContentResponse;
+import com.moon.taxadvisor.client.gemini.GeminiModels.Part;
+import com.moon.taxadvisor.client.gemini.GeminiResponseCache;
+import com.moon.taxadvisor.client.resilience.UpstreamGuard;
+import com.moon.taxadvisor.config.GeminiProperties;
+import com.moon.taxadvisor.config.HarvestProperties;
+import com.moon.taxadvisor.config.ToolResultProperties;
+import com.moon.taxadvisor.service.TaxAdvisorAgentService.AgentResult;
+import com.moon.taxadvisor.service.TaxAdvisorAgentService.PreparedAdvice;
+import com.moon.taxadvisor.service.TaxAdvisorAgentService.StateTiming;
+import com.moon.taxadvisor.service.TaxCalculationService.TaxPreview;
+import com.moon.taxadvisor.service.TaxLossHarvestOptimizer.HarvestConstraints;
+import com.moon.taxadvisor.service.TaxLossHarvestOptimizer.HarvestPlan;
+import com.moon.taxadvisor.tool.TaxToolDefinitions;
+import com.moon.taxadvisor.tool.ToolResultEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import tools.jackson.databind.json.JsonMapper;
+
+class TaxAdvisorAgentServiceTest {
+
+    private static final TaxPreview ZERO_PREVIEW = new TaxPreview(
+            BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+    private static final PreparedAdvice PREPARED = new PreparedAdvice("me", ZERO_PREVIEW);
+    private static final HarvestConstraints CONSTRAINTS = new HarvestConstraints(0, 0);
+    private static final HarvestPlan PLAN = new HarvestPlan(List.of(), BigDecimal.ZERO, ZERO_PREVIEW, CONSTRAINTS, 0, true);
+
+    private final GeminiProperties geminiProperties = new GeminiProperties();
+    private final HarvestProperties harvestProperties = new HarvestProperties();
+    private final UpstreamGuard geminiUpstreamGuard = mock(UpstreamGuard.class);
+    private final GeminiClient geminiClient = mock(GeminiClient.class);
+    private final GeminiResponseCache geminiResponseCache = mock(GeminiResponseCache.class);
+    private final TaxToolDefinitions taxToolDefinitions = mock(TaxToolDefinitions.class);
+    private final PortfolioQueryService portfolioQueryService = mock(PortfolioQueryService.class);
+    private final TaxLossHarvestOptimizer taxLossHarvestOptimizer = mock(TaxLossHarvestOptimizer.class);
+    private final List<List<Content>> sentConversations = new ArrayList<>();
+    private final Deque<Supplier<Mono<GenerateContentResponse>>> modelTurns = new ArrayDeque<>();
+    private TaxAdvisorAgentService service;
+
+    @BeforeEach
+    void setUp() {
+        when(geminiClient.isConfigured()).thenReturn(true);
+
+        // 호출 시점의 대화를 복사해 두고, 준비된 모델 턴을 순서대로 돌려준다.
+        when(geminiResponseCache.generateContent(anyString(), anyList(), anyList(), anyString())).thenAnswer(invocation -> {
+            sentConversations.add(List.copyOf(invocation.<List<Content>>getArgument(1)));
+            return modelTurns.removeFirst().get();
+        });
+
+        when(taxToolDefinitions.buildTools()).thenReturn(List.of());
+
+        when(portfolioQueryService.loadSnapshot("me")).thenReturn(new UserDataSnapshot("me", List.of(), List.of()));
+        when(portfolioQueryService.getUserPortfolio(any(UserDataSnapshot.class))).thenReturn(List.of());
+        when(portfolioQueryService.getRealizedGains(any(UserDataSnapshot.class)))
+                .thenReturn(new PortfolioQueryService.RealizedGainView(BigDecimal.ZERO, List.of()));
+
+        when(taxLossHarvestOptimizer.defaultConstraints()).thenReturn(CONSTRAINTS);
+        when(taxLossHarvestOptimizer.optimize(any(UserDataSnapshot.class))).thenReturn(PLAN);
+        when(taxLossHarvestOptimizer.optimize(any(UserDataSnapshot.class), any(HarvestConstraints.class))).thenReturn(PLAN);
+
+        service = newService(Schedulers.immediate());
+    }
+
+    @Test
+    void prefetchSendsSyntheticCallTurnAndOneUserTurnWithThreeResponses() {
+        geminiProperties.setPrefetchTools(true);
+        modelTurns.add(() -> respond(text("손실 종목을 연내 매도하세요.")));
+
+        AgentResult result = service.adviseReactive("절세 전략", PREPARED).block();
+
+        assertThat(sentConversations).hasSize(1);
+        List<Content> conversation = sentConversations.get(0);
+        assertThat(conversation).hasSize(3);
+
+        Content syntheticCalls = conversation.get(1);
+        assertThat(syntheticCalls.role()).isEqualTo("model");
+        assertThat(syntheticCalls.parts())
+                .extracting(part -> part.functionCall().name())
+                .containsExactly("getUserPortfolio", "getRealizedGains", "getHarvestPlan");
+        assertThat(syntheticCalls.parts())
+                .extracting(Part::thoughtSignature)
+                .containsExactly(GeminiModels.SYNTHETIC_THOUGHT_SIGNATURE, null, null);
+
+        Content responses = conversation.get(2);
+        assertThat(responses.role()).isEqualTo("user");
+        assertThat(responses.parts())
+                .extracting(part -> part.functionResponse().name())
+                .containsExactly("getUserPortfolio", "getRealizedGains", "getHarvestPlan");
+        assertThat(responses.parts())
+                .allSatisfy(part -> assertThat(part.functionResponse().response()).containsKey("data"));
+
+        // 도구 결과를 이미 받은 상태로 시작하므로 첫 텍스트 답변을 함수 호출 재요청 없이 그대로 쓴다.
+        assertThat(result.fallbackUsed()).isFalse();
+        assertThat(result.iterations()).isEqualTo(1);
+        assertThat(result.trace().exitReason()).isEqualTo("answered");
+    }
+
+    @Test
+    void toolLoopAsksForToolsBeforeAcceptingAnAnswer() {
+        modelTurns.add(() -> respond(text("바로 답변")));
+        modelTurns.add(() -> respond(functionCall("getUserPortfolio")));
+        modelTurns.add(() -> respond(text("손실 종목을 연내 매도하세요.")));
+
+        AgentResult result = service.adviseReactive("절세 전략", PREPARED).block();
+
+        assertThat(sentConversations).hasSize(3);
+        assertThat(sentConversations.get(2).get(sentConversations.get(2).size() - 1).parts().get(0).functionResponse())
+                .isNotNull();
+        assertThat(result.fallbackUsed()).isFalse();
+        assertThat(result.iterations()).isEqualTo(3);
+        assertThat(result.trace().exitReason()).isEqualTo("answered");
+    }
+
+    @Test
+    void deadlineEndsTheLoopWithFallbackWhenTheModelDoesNotAnswer() {
+        geminiProperties.setLatencyBudgetMs(200);
+        geminiProperties.setMinIterationBudgetMs(0);
+        modelTurns.add(Mono::never);
+
+        AgentResult result = service.adviseReactive("절세 전략", PREPARED).block(Duration.ofSeconds(5));
+
+        assertThat(result.fallbackUsed()).isTrue();
+        assertThat(result.trace().exitReason()).isEqualTo("deadline");
+        assertThat(result.trace().states()).extracting(StateTiming::state).containsExactly("CALL_MODEL");
+    }
+
+    @Test
+    void upstreamLatencyEstimateAboveRemainingBudgetSkipsTheCall() {
+        geminiProperties.setLatencyBudgetMs(10_000);
+        geminiProperties.setMinIterationBudgetMs(0);
+        when(geminiUpstreamGuard.latencyEstimateMs()).thenReturn(30_000L);
+
+        AgentResult result = service.adviseReactive("절세 전략", PREPARED).block();
+
+        assertThat(sentConversations).isEmpty();
+        assertThat(result.fallbackUsed()).isTrue();
+        assertThat(result.iterations()).isZero();
+        assertThat(result.trace().exitReason()).isEqualTo("budget-exhausted");
+    }
+
+    @Test
+    void maxIterationsEndsALoopThatKeepsCallingTools() {
+        geminiProperties.setMaxIterations(2);
+        modelTurns.add(() -> respond(functionCall("getUserPortfolio")));
+        modelTurns.add(() -> respond(functionCall("getRealizedGains")));
+
+        AgentResult result = service.adviseReactive("절세 전략", PREPARED).block();
+
+        assertThat(sentConversations).hasSize(2);
+        assertThat(result.fallbackUsed()).isTrue();
+        assertThat(result.iterations()).isEqualTo(2);
+        assertThat(result.trace().exitReason()).isEqualTo("max-iterations");
+        assertThat(result.trace().states()).extracting(StateTiming::state)
+                .containsExactly("CALL_MODEL", "EXECUTE_TOOLS", "CALL_MODEL", "EXECUTE_TOOLS", "CALL_MODEL");
+    }
+
+    @Test
+    void harvestPlanIsNotComputedForTheResponseWhenAttachingIsOff() {
+        harvestProperties.setAttachToAdvice(false);
+        modelTurns.add(() -> respond(functionCall("getUserPortfolio")));
+        modelTurns.add(() -> respond(text("손실 종목을 연내 매도하세요.")));
+
+        AgentResult result = service.adviseReactive("절세 전략", PREPARED).block();
+
+        assertThat(result.fallbackUsed()).isFalse();
+        assertThat(result.harvestPlan()).isNull();
+        verify(taxLossHarvestOptimizer, never()).optimize(any(UserDataSnapshot.class));
+    }
+
+    @Test
+    void harvestPlanIsAttachedByDefault() {
+        modelTurns.add(() -> respond(functionCall("getUserPortfolio")));
+        modelTurns.add(() -> respond(text("손실 종목을 연내 매도하세요.")));
+
+        AgentResult result = service.adviseReactive("절세 전략", PREPARED).block();
+
+        assertThat(result.harvestPlan()).isSameAs(PLAN);
+    }
+
+    @Test
+    void slaFallbackKeepsAHarvestPlanThatAlreadyFinished() {
+        geminiProperties.setSlaEnabled(true);
+        geminiProperties.setSlaDeadlineMs(100);
+        modelTurns.add(Mono::never);
+
+        AgentResult result = service.adviseReactive("절세 전략", PREPARED).block(Duration.ofSeconds(5));
+
+        assertThat(result.fallbackUsed()).isTrue();
+        assertThat(result.trace().exitReason()).isEqualTo("sla-deadline");
+        assertThat(result.harvestPlan()).isSameAs(PLAN);
+    }
+
+    @Test
+    void slaFallbackDropsAHarvestPlanStillRunningAtTheDeadline() throws InterruptedException {
+        geminiProperties.setSlaEnabled(true);
+        geminiProperties.setSlaDeadlineMs(100);
+        modelTurns.add(Mono::never);
+        CountDownLatch snapshotReleased = new CountDownLatch(1);
+        when(portfolioQueryService.loadSnapshot("me")).thenAnswer(invocation -> {
+            snapshotReleased.await(5, TimeUnit.SECONDS);
+            return new UserDataSnapshot("me", List.of(), List.of());
+        });
+        Scheduler blockingScheduler = Schedulers.newSingle("slow-snapshot");
+        service = newService(blockingScheduler);
+
+        try {
+            AgentResult result = service.adviseReactive("절세 전략", PREPARED).block(Duration.ofSeconds(5));
+
+            assertThat(result.trace().exitReason()).isEqualTo("sla-deadline");
+            assertThat(result.harvestPlan()).isNull();
+        } finally {
+            snapshotReleased.countDown();
+            blockingScheduler.dispose();
+        }
+    }
+
+    private TaxAdvisorAgentService newService(Scheduler blockingScheduler) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new TaxAdvisorAgentService(
+                geminiClient,
+                geminiResponseCache,
+                geminiUpstreamGuard,
+                geminiProperties,
+                harvestProperties,
+                taxToolDefinitions,
+                portfolioQueryService,
+                mock(TaxCalculationService.class),
+                mock(TaxLedgerService.class),
+                taxLossHarvestOptimizer,
+                new ToolResultEncoder(JsonMapper.builder().build(), new ToolResultProperties(), meterRegistry),
+                meterRegistry,
+                blockingScheduler
+        );
+    }
+
+    private static Mono<GenerateContentResponse> respond(Part part) {
+        return Mono.just(new GenerateContentResponse(List.of(new Candidate(new Content("model", List.of(part))))));
+    }
+
+    private static Part text(String text) {
+        return new Part(text, null, null, null);
+    }
+
+    private static Part functionCall(String name) {
+        return new Part(null, new FunctionCall(name, Map.of("userId", "me")), null, null);
+    }
+}
@@ -0,0 +1,46 @@
+package com.moon.taxadvisor.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.moon.taxadvisor.domain.Money;
+import com.moon.taxadvisor.domain.Portfolio;
+import com.moon.taxadvisor.domain.PositionBook;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class TaxCalculationFixedPointTest {
+
+    private final TaxCalculationService taxCalculationService = new TaxCalculationService(null, null, null);
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1_000, 100_000})
+    void fixedPointEngineMatchesBigDecimalReference(int size) {
+        List<Portfolio> portfolios = TaxCalculationFixtures.randomPortfolios(size, size);
+        BigDecimal realizedGain = TaxCalculationFixtures.randomRealizedGain(size);
+        PositionBook book = PositionBook.of(portfolios);
+        PositionBook.Totals totals = book.totals();
+
+        assertThat(Money.toBigDecimal(totals.costBasis()))
+                .isEqualByComparingTo(TaxCalculationFixtures.referenceCostBasis(portfolios));
+        assertThat(Money.toBigDecimal(totals.marketValue()))
+                .isEqualByComparingTo(TaxCalculationFixtures.referenceMarketValue(portfolios));
+        assertThat(Money.toBigDecimal(totals.unrealizedLoss()))
+                .isEqualByComparingTo(TaxCalculationFixtures.referenceUnrealizedLoss(portfolios));
+
+        assertThat(taxCalculationService.calculatePreview(book, Money.fromBigDecimal(realizedGain)))
+                .isEqualTo(TaxCalculationFixtures.referencePreview(portfolios, realizedGain));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1_000})
+    void positionGainAndRateMatchBigDecimalReference(int size) {
+        for (Portfolio portfolio : TaxCalculationFixtures.randomPortfolios(size, 31L * size)) {
+            assertThat(portfolio.getUnrealizedGain())
+                    .isEqualTo(TaxCalculationFixtures.referenceUnrealizedGain(portfolio));
+            assertThat(portfolio.getUnrealizedRatePercent())
+                    .isEqualTo(TaxCalculationFixtures.referenceUnrealizedRatePercent(portfolio));
+        }
+    }
+}
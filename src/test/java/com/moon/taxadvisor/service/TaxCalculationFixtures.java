@@ -0,0 +1,99 @@
+package com.moon.taxadvisor.service;
+
+import com.moon.taxadvisor.domain.Market;
+import com.moon.taxadvisor.domain.Portfolio;
+import com.moon.taxadvisor.service.TaxCalculationService.TaxPreview;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 고정소수점 계산 엔진 검증/벤치마크용 데이터와, 기존 BigDecimal 계산식을 그대로 옮긴 기준 구현.
+ */
+public final class TaxCalculationFixtures {
+
+    private static final BigDecimal TAX_RATE = new BigDecimal("0.22");
+
+    private TaxCalculationFixtures() {
+    }
+
+    public static List<Portfolio> randomPortfolios(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Portfolio> portfolios = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long averageCents = random.nextLong(1_000L, 100_000_000L);
+            long currentCents = Math.max(1L, averageCents + random.nextLong(-averageCents / 2, averageCents / 2 + 1));
+
+            Portfolio portfolio = new Portfolio();
+            portfolio.setUserId("bench");
+            portfolio.setMarket(i % 2 == 0 ? Market.KR : Market.US);
+            portfolio.setStockName("STOCK_" + i);
+            portfolio.setAveragePrice(BigDecimal.valueOf(averageCents, 2));
+            portfolio.setCurrentPrice(BigDecimal.valueOf(currentCents, 2));
+            portfolio.setQuantity(random.nextLong(1L, 10_000L));
+            portfolios.add(portfolio);
+        }
+        return portfolios;
+    }
+
+    public static BigDecimal randomRealizedGain(long seed) {
+        return BigDecimal.valueOf(new SplittableRandom(seed).nextLong(-1_000_000_000L, 50_000_000_000L), 2);
+    }
+
+    public static BigDecimal referenceUnrealizedGain(Portfolio portfolio) {
+        return portfolio.getCurrentPrice()
+                .subtract(portfolio.getAveragePrice())
+                .multiply(BigDecimal.valueOf(portfolio.getQuantity()));
+    }
+
+    public static BigDecimal referenceUnrealizedRatePercent(Portfolio portfolio) {
+        return portfolio.getCurrentPrice()
+                .subtract(portfolio.getAveragePrice())
+                .divide(portfolio.getAveragePrice(), 4, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100));
+    }
+
+    public static BigDecimal referenceCostBasis(List<Portfolio> portfolios) {
+        return portfolios.stream()
+                .map(portfolio -> portfolio.getAveragePrice().multiply(BigDecimal.valueOf(portfolio.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    public static BigDecimal referenceMarketValue(List<Portfolio> portfolios) {
+        return portfolios.stream()
+                .map(portfolio -> portfolio.getCurrentPrice().multiply(BigDecimal.valueOf(portfolio.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    public static BigDecimal referenceUnrealizedLoss(List<Portfolio> portfolios) {
+        return portfolios.stream()
+                .map(TaxCalculationFixtures::referenceUnrealizedGain)
+                .filter(value -> value.signum() < 0)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    public static TaxPreview referencePreview(List<Portfolio> portfolios, BigDecimal totalRealizedGain) {
+        BigDecimal totalUnrealizedLoss = referenceUnrealizedLoss(portfolios);
+
+        BigDecimal taxableBefore = floorToZero(totalRealizedGain);
+        BigDecimal estimatedTaxBefore = taxableBefore.multiply(TAX_RATE).setScale(0, RoundingMode.HALF_UP);
+
+        BigDecimal taxableAfterLossHarvest = floorToZero(totalRealizedGain.add(totalUnrealizedLoss));
+        BigDecimal estimatedTaxAfter = taxableAfterLossHarvest.multiply(TAX_RATE).setScale(0, RoundingMode.HALF_UP);
+        BigDecimal estimatedTaxSavings = floorToZero(estimatedTaxBefore.subtract(estimatedTaxAfter));
+
+        return new TaxPreview(
+                totalRealizedGain.setScale(0, RoundingMode.HALF_UP),
+                totalUnrealizedLoss.setScale(0, RoundingMode.HALF_UP),
+                estimatedTaxBefore,
+                estimatedTaxAfter,
+                estimatedTaxSavings
+        );
+    }
+
+    private static BigDecimal floorToZero(BigDecimal value) {
+        return value.signum() < 0 ? BigDecimal.ZERO : value;
+    }
+}
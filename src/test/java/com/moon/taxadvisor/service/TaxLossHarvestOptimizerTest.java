@@ -0,0 +1,144 @@
+package com.moon.taxadvisor.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.moon.taxadvisor.config.HarvestProperties;
+import com.moon.taxadvisor.domain.Market;
+import com.moon.taxadvisor.domain.Money;
+import com.moon.taxadvisor.domain.Portfolio;
+import com.moon.taxadvisor.service.TaxLossHarvestOptimizer.HarvestConstraints;
+import com.moon.taxadvisor.service.TaxLossHarvestOptimizer.HarvestPlan;
+import com.moon.taxadvisor.service.TaxLossHarvestOptimizer.HarvestSale;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TaxLossHarvestOptimizerTest {
+
+    private static final HarvestConstraints UNCONSTRAINED = new HarvestConstraints(0, 0);
+
+    private final TaxCalculationService taxCalculationService = new TaxCalculationService(null, null, null);
+
+    @Test
+    void exactCoverSellsOnlyTheSharesNeeded() {
+        List<Portfolio> portfolios = List.of(position(Market.KR, "A", 100, 90, 50));
+
+        HarvestPlan plan = optimizer(200_000).optimize(portfolios, won(300), UNCONSTRAINED);
+
+        assertThat(plan.sales()).hasSize(1);
+        HarvestSale sale = plan.sales().get(0);
+        assertThat(sale.quantity()).isEqualTo(30);
+        assertThat(sale.heldQuantity()).isEqualTo(50);
+        assertThat(sale.sellAll()).isFalse();
+        assertThat(sale.realizedLoss()).isEqualByComparingTo("-300");
+        assertThat(plan.harvestedLoss()).isEqualByComparingTo("-300");
+        assertThat(plan.taxPreviewAfterPlan().estimatedTaxAfterHarvest()).isEqualByComparingTo("0");
+        assertThat(plan.optimal()).isTrue();
+    }
+
+    @Test
+    void fewestPositionsWinsWhenUncoveredAmountTies() {
+        // A+B는 100원 초과, A+C는 정확히, B+C+D도 정확히 덮지만 세 종목이다.
+        List<Portfolio> portfolios = List.of(
+                position(Market.KR, "A", 1_000, 300, 1),
+                position(Market.KR, "B", 1_000, 600, 1),
+                position(Market.KR, "C", 1_000, 700, 1),
+                position(Market.KR, "D", 1_000, 700, 1)
+        );
+
+        HarvestPlan plan = optimizer(200_000).optimize(portfolios, won(1_000), UNCONSTRAINED);
+
+        assertThat(plan.sales()).extracting(HarvestSale::stockName).containsExactly("A", "C");
+        assertThat(plan.harvestedLoss()).isEqualByComparingTo("-1000");
+        assertThat(plan.optimal()).isTrue();
+    }
+
+    @Test
+    void maxPositionsSoldCapsTheNumberOfSales() {
+        List<Portfolio> portfolios = List.of(
+                position(Market.KR, "A", 1_000, 600, 1),
+                position(Market.KR, "B", 1_000, 700, 1),
+                position(Market.KR, "C", 1_000, 700, 1)
+        );
+
+        HarvestPlan plan = optimizer(200_000).optimize(portfolios, won(1_000), new HarvestConstraints(2, 0));
+
+        assertThat(plan.sales()).extracting(HarvestSale::stockName).containsExactly("A", "B");
+        assertThat(plan.harvestedLoss()).isEqualByComparingTo("-700");
+        // 덮지 못한 300원에 22%
+        assertThat(plan.taxPreviewAfterPlan().estimatedTaxAfterHarvest()).isEqualByComparingTo("66");
+        assertThat(plan.optimal()).isTrue();
+    }
+
+    @Test
+    void minPositionsKeptPerMarketKeepsOneShareOfTheLastPositionInThatMarket() {
+        List<Portfolio> portfolios = List.of(
+                position(Market.KR, "A", 100, 90, 10),
+                position(Market.US, "B", 100, 80, 1),
+                position(Market.US, "C", 100, 150, 3)
+        );
+
+        HarvestPlan plan = optimizer(200_000).optimize(portfolios, won(1_000), new HarvestConstraints(0, 1));
+
+        assertThat(plan.sales()).hasSize(2);
+        HarvestSale korean = plan.sales().get(0);
+        assertThat(korean.stockName()).isEqualTo("A");
+        assertThat(korean.quantity()).isEqualTo(9);
+        assertThat(korean.sellAll()).isFalse();
+        // 미국 시장은 수익 종목 C가 남으므로 B를 전량 매도할 수 있다.
+        HarvestSale american = plan.sales().get(1);
+        assertThat(american.stockName()).isEqualTo("B");
+        assertThat(american.sellAll()).isTrue();
+        assertThat(plan.harvestedLoss()).isEqualByComparingTo("-110");
+    }
+
+    @Test
+    void nothingToOffsetReturnsAnEmptyPlanWithoutSearching() {
+        List<Portfolio> portfolios = List.of(position(Market.KR, "A", 100, 90, 10));
+
+        for (long realizedGainWon : new long[]{0, -500}) {
+            HarvestPlan plan = optimizer(200_000).optimize(portfolios, won(realizedGainWon), UNCONSTRAINED);
+
+            assertThat(plan.sales()).isEmpty();
+            assertThat(plan.harvestedLoss()).isEqualByComparingTo("0");
+            assertThat(plan.searchNodes()).isZero();
+            assertThat(plan.optimal()).isTrue();
+        }
+    }
+
+    @Test
+    void nodeCapReturnsBestPlanSoFarAsNotOptimal() {
+        List<Portfolio> portfolios = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            portfolios.add(position(Market.KR, "S" + i, 1_000, 990 - i, 1));
+        }
+
+        HarvestPlan plan = optimizer(3).optimize(portfolios, won(1_000_000), UNCONSTRAINED);
+
+        assertThat(plan.optimal()).isFalse();
+        assertThat(plan.searchNodes()).isGreaterThan(3);
+        assertThat(plan.sales()).isNotEmpty();
+    }
+
+    private TaxLossHarvestOptimizer optimizer(int maxSearchNodes) {
+        HarvestProperties harvestProperties = new HarvestProperties();
+        harvestProperties.setMaxSearchNodes(maxSearchNodes);
+        return new TaxLossHarvestOptimizer(taxCalculationService, harvestProperties);
+    }
+
+    private static long won(long amount) {
+        return amount * Money.ONE_WON;
+    }
+
+    private static Portfolio position(Market market, String stockName, long averagePrice, long currentPrice, long quantity) {
+        Portfolio portfolio = new Portfolio();
+        portfolio.setUserId("me");
+        portfolio.setMarket(market);
+        portfolio.setStockName(stockName);
+        portfolio.setAveragePrice(BigDecimal.valueOf(averagePrice));
+        portfolio.setCurrentPrice(BigDecimal.valueOf(currentPrice));
+        portfolio.setQuantity(quantity);
+        return portfolio;
+    }
+}
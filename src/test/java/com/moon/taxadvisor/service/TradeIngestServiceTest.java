@@ -0,0 +1,178 @@
+package com.moon.taxadvisor.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.moon.taxadvisor.config.IngestProperties;
+import com.moon.taxadvisor.domain.LedgerDelta;
+import com.moon.taxadvisor.domain.Market;
+import com.moon.taxadvisor.domain.UserDataChangedEvent;
+import com.moon.taxadvisor.repository.TaxLedgerRepository;
+import com.moon.taxadvisor.repository.TradeIngestRepository;
+import com.moon.taxadvisor.repository.TradeIngestRepository.PortfolioRow;
+import com.moon.taxadvisor.repository.TradeIngestRepository.RealizedGainRow;
+import com.moon.taxadvisor.service.TradeIngestService.IngestFailedException;
+import com.moon.taxadvisor.service.TradeIngestService.IngestFormat;
+import com.moon.taxadvisor.service.TradeIngestService.IngestResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+class TradeIngestServiceTest {
+
+    private final TradeIngestRepository tradeIngestRepository = mock(TradeIngestRepository.class);
+    private final TaxLedgerRepository taxLedgerRepository = mock(TaxLedgerRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final List<List<PortfolioRow>> portfolioBatches = new ArrayList<>();
+    private final List<List<RealizedGainRow>> realizedGainBatches = new ArrayList<>();
+    private TradeIngestService tradeIngestService;
+
+    @BeforeEach
+    void setUp() {
+        // 서비스는 커밋 후 배치 리스트를 비워 재사용하므로 호출 시점의 내용을 복사해 둔다.
+        doAnswer(invocation -> portfolioBatches.add(List.copyOf(invocation.<List<PortfolioRow>>getArgument(0))))
+                .when(tradeIngestRepository).insertPortfolios(anyList());
+        doAnswer(invocation -> realizedGainBatches.add(List.copyOf(invocation.<List<RealizedGainRow>>getArgument(0))))
+                .when(tradeIngestRepository).insertRealizedGains(anyList());
+
+        IngestProperties ingestProperties = new IngestProperties();
+        ingestProperties.setBatchSize(2);
+        tradeIngestService = new TradeIngestService(
+                tradeIngestRepository,
+                taxLedgerRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                eventPublisher,
+                JsonMapper.builder().build(),
+                ingestProperties,
+                new SimpleMeterRegistry()
+        );
+    }
+
+    @Test
+    void csvQuotedFieldsKeepCommasAndEscapedQuotes() {
+        tradeIngestService.ingestPortfolios(input("""
+                user_id,market,stock_name,average_price,current_price,quantity
+                me,KR,"SAMSUNG, PREF",70000,65000,10
+                "me",us,"A ""B"" C", 100.5 ,90,3
+                """), IngestFormat.CSV);
+
+        assertThat(portfolioBatches).hasSize(1);
+        assertThat(portfolioBatches.get(0)).containsExactly(
+                new PortfolioRow("me", Market.KR, "SAMSUNG, PREF", new BigDecimal("70000"), new BigDecimal("65000"), 10),
+                new PortfolioRow("me", Market.US, "A \"B\" C", new BigDecimal("100.5"), new BigDecimal("90"), 3)
+        );
+    }
+
+    @Test
+    void blankLinesAndHeaderAreSkipped() {
+        IngestResult result = tradeIngestService.ingestRealizedGains(input("""
+                user_id,stock_name,gain_amount,realized_date
+
+                me,TSLA,-2000000,2025-03-02
+                   \t
+                me,NVDA,6600000,2025-05-10
+
+                """), IngestFormat.CSV);
+
+        assertThat(result.rows()).isEqualTo(2);
+        assertThat(realizedGainBatches).hasSize(1);
+        assertThat(realizedGainBatches.get(0)).containsExactly(
+                new RealizedGainRow("me", "TSLA", new BigDecimal("-2000000"), LocalDate.of(2025, 3, 2)),
+                new RealizedGainRow("me", "NVDA", new BigDecimal("6600000"), LocalDate.of(2025, 5, 10))
+        );
+    }
+
+    @Test
+    void commitsEveryBatchSizeRowsAndAppliesLedgerDeltaPerUserPerBatch() {
+        IngestResult result = tradeIngestService.ingestRealizedGains(input("""
+                me,A,100,2025-01-01
+                me,B,200,2025-01-02
+                you,C,300,2025-01-03
+                me,D,400,2025-01-04
+                you,E,500,2025-01-05
+                """), IngestFormat.CSV);
+
+        assertThat(result.rows()).isEqualTo(5);
+        assertThat(result.batches()).isEqualTo(3);
+        assertThat(realizedGainBatches).extracting(List::size).containsExactly(2, 2, 1);
+
+        verify(taxLedgerRepository).applyDelta("me", LedgerDelta.ofRealizedGain(new BigDecimal("300")));
+        verify(taxLedgerRepository).applyDelta("you", LedgerDelta.ofRealizedGain(new BigDecimal("300")));
+        verify(taxLedgerRepository).applyDelta("me", LedgerDelta.ofRealizedGain(new BigDecimal("400")));
+        verify(taxLedgerRepository).applyDelta("you", LedgerDelta.ofRealizedGain(new BigDecimal("500")));
+        verify(eventPublisher, times(2)).publishEvent(new UserDataChangedEvent("me"));
+        verify(eventPublisher, times(2)).publishEvent(new UserDataChangedEvent("you"));
+    }
+
+    @Test
+    void badNumberFailsAsInvalidInputAndKeepsBatchesCommittedBeforeIt() {
+        IngestFailedException failure = catchThrowableOfType(IngestFailedException.class, () ->
+                tradeIngestService.ingestPortfolios(input("""
+                        me,KR,A,100,90,1
+                        me,KR,B,100,90,1
+                        me,KR,C,1OO,90,1
+                        """), IngestFormat.CSV));
+
+        assertThat(failure.isInvalidInput()).isTrue();
+        assertThat(failure.getCommittedRows()).isEqualTo(2);
+        assertThat(failure.getMessage()).startsWith("line 3:");
+        assertThat(portfolioBatches).hasSize(1);
+    }
+
+    @Test
+    void wrongColumnCountFailsAsInvalidInput() {
+        IngestFailedException failure = catchThrowableOfType(IngestFailedException.class, () ->
+                tradeIngestService.ingestRealizedGains(input("me,A,100\n"), IngestFormat.CSV));
+
+        assertThat(failure.isInvalidInput()).isTrue();
+        assertThat(failure.getMessage()).contains("expected 4 columns but got 3");
+    }
+
+    @Test
+    void ndjsonMissingFieldFailsAsInvalidInput() {
+        IngestFailedException failure = catchThrowableOfType(IngestFailedException.class, () ->
+                tradeIngestService.ingestPortfolios(input("""
+                        {"userId":"me","market":"KR","stockName":"A","averagePrice":100,"currentPrice":90}
+                        """), IngestFormat.NDJSON));
+
+        assertThat(failure.isInvalidInput()).isTrue();
+        assertThat(failure.getCommittedRows()).isZero();
+    }
+
+    @Test
+    void databaseFailureIsNotInvalidInput() {
+        doAnswer(invocation -> {
+            throw new DataAccessResourceFailureException("connection lost");
+        }).when(tradeIngestRepository).insertRealizedGains(anyList());
+
+        IngestFailedException failure = catchThrowableOfType(IngestFailedException.class, () ->
+                tradeIngestService.ingestRealizedGains(input("me,A,100,2025-01-01\n"), IngestFormat.CSV));
+
+        assertThat(failure.isInvalidInput()).isFalse();
+        assertThat(failure.getCommittedRows()).isZero();
+        verify(taxLedgerRepository, times(0)).applyDelta(eq("me"), any(LedgerDelta.class));
+    }
+
+    private static InputStream input(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,114 @@
+package com.moon.taxadvisor.tool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.moon.taxadvisor.config.ToolResultProperties;
+import com.moon.taxadvisor.config.ToolResultProperties.Layout;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+class ToolResultEncoderTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void numbersLoseRedundantFractionDigits() {
+        Amounts amounts = new Amounts(
+                new BigDecimal("500000.00"),
+                new BigDecimal("40.0000"),
+                new BigDecimal("12.50"),
+                new BigDecimal("1000.00"),
+                new BigDecimal("12345678901234567890.00"),
+                7L
+        );
+
+        assertThat(encode(Layout.COLUMNAR, amounts)).isEqualTo(
+                "{\"won\":500000,\"percent\":40,\"fraction\":12.5,\"thousand\":1000,"
+                        + "\"beyondLong\":12345678901234567890,\"quantity\":7}");
+    }
+
+    @Test
+    void nullFieldsAreDropped() {
+        assertThat(encode(Layout.COLUMNAR, List.of(new Memo("A", null))))
+                .isEqualTo("[{\"stockName\":\"A\"}]");
+    }
+
+    @Test
+    void columnarLayoutTurnsUniformObjectArraysIntoTables() {
+        Holdings holdings = new Holdings(List.of(
+                new Row("A", new BigDecimal("100.00")),
+                new Row("B", new BigDecimal("40.50"))
+        ));
+
+        assertThat(encode(Layout.COLUMNAR, holdings)).isEqualTo(
+                "{\"items\":{\"columns\":[\"stockName\",\"price\"],\"rows\":[[\"A\",100],[\"B\",40.5]]}}");
+        assertThat(encode(Layout.ROWS, holdings)).isEqualTo(
+                "{\"items\":[{\"stockName\":\"A\",\"price\":100},{\"stockName\":\"B\",\"price\":40.5}]}");
+    }
+
+    @Test
+    void arraysWithDifferentFieldsOrSingleElementStayAsObjects() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("a", 1);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("b", 2);
+
+        assertThat(encode(Layout.COLUMNAR, List.of(first, second))).isEqualTo("[{\"a\":1},{\"b\":2}]");
+        assertThat(encode(Layout.COLUMNAR, List.of(new Row("A", BigDecimal.ONE))))
+                .isEqualTo("[{\"stockName\":\"A\",\"price\":1}]");
+    }
+
+    @Test
+    void rawSizeIsRecordedOnlyWhenSampled() {
+        encode(Layout.COLUMNAR, 0.0, new Row("A", BigDecimal.TEN));
+        assertThat(rawSizeSummary()).isNull();
+
+        encode(Layout.COLUMNAR, 1.0, new Row("A", BigDecimal.TEN));
+        assertThat(rawSizeSummary()).isNotNull();
+        assertThat(rawSizeSummary().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("gemini.tool.result.bytes").tag("encoding", "columnar").summary().count())
+                .isEqualTo(2);
+    }
+
+    private String encode(Layout layout, Object result) {
+        return encode(layout, 0.0, result);
+    }
+
+    private String encode(Layout layout, double rawSizeSampleRate, Object result) {
+        ToolResultProperties toolResultProperties = new ToolResultProperties();
+        toolResultProperties.setLayout(layout);
+        toolResultProperties.setRawSizeSampleRate(rawSizeSampleRate);
+        ToolResultEncoder encoder = new ToolResultEncoder(jsonMapper, toolResultProperties, meterRegistry);
+        return jsonMapper.writeValueAsString(encoder.encode("test", result).get("data"));
+    }
+
+    private DistributionSummary rawSizeSummary() {
+        return meterRegistry.find("gemini.tool.result.bytes").tag("encoding", "raw").summary();
+    }
+
+    record Amounts(
+            BigDecimal won,
+            BigDecimal percent,
+            BigDecimal fraction,
+            BigDecimal thousand,
+            BigDecimal beyondLong,
+            Long quantity
+    ) {
+    }
+
+    record Memo(String stockName, String memo) {
+    }
+
+    record Row(String stockName, BigDecimal price) {
+    }
+
+    record Holdings(List<Row> items) {
+    }
+}